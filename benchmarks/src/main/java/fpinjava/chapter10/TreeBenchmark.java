@@ -0,0 +1,153 @@
+package fpinjava.chapter10;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// insert() and member() use keys in random order (fixed seed), which is the good case for the unbalanced Tree.
+// insertSorted() inserts 0, 1, 2, ... which is the worst case for Tree.T (a linked list, StackOverflowError past a few thousand keys).
+// treeFromSorted() bulk loads the same keys in O(n). merge() and union() combine two trees of size random keys.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    // tree: Tree.empty() (unbalanced Tree.T), avl: AvlTree.empty()
+    @Param({"tree", "avl"})
+    String kind;
+
+    int[] keys;
+    Integer[] sortedKeys;
+    Tree<Integer> tree;
+    Tree<Integer> other;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt();
+        }
+        tree = insertAll();
+        sortedKeys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = i;
+        }
+        Tree<Integer> t = empty();
+        for (int i = 0; i < size; i++) {
+            t = t.insert(random.nextInt());
+        }
+        other = t;
+    }
+
+    private Tree<Integer> empty() {
+        return kind.equals("avl") ? AvlTree.empty() : Tree.empty();
+    }
+
+    private Tree<Integer> insertAll() {
+        Tree<Integer> t = empty();
+        for (int key : keys) {
+            t = t.insert(key);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public Tree<Integer> insert() {
+        return insertAll();
+    }
+
+    @Benchmark
+    public Tree<Integer> insertSorted() {
+        Tree<Integer> t = empty();
+        for (int i = 0; i < size; i++) {
+            t = t.insert(i);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public int member() {
+        int found = 0;
+        for (int key : keys) {
+            found += tree.member(key) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long rank() {
+        long ranks = 0;
+        for (int key : keys) {
+            ranks += tree.rank(key);
+        }
+        return ranks;
+    }
+
+    @Benchmark
+    public Integer foldInOrder() {
+        return tree.foldInOrder(0, l -> v -> r -> l + r + 1);
+    }
+
+    @Benchmark
+    public Integer foldPreOrder() {
+        return tree.foldPreOrder(0, v -> l -> r -> l + r + 1);
+    }
+
+    @Benchmark
+    public Integer foldPostOrder() {
+        return tree.foldPostOrder(0, l -> r -> v -> l + r + 1);
+    }
+
+    @Benchmark
+    public Integer foldLeft() {
+        return tree.foldLeft(0, acc -> v -> acc + 1);
+    }
+
+    @Benchmark
+    public Integer foldLeftWithCombine() {
+        return tree.foldLeft(0, acc -> v -> acc + 1, r -> l -> l + r);
+    }
+
+    @Benchmark
+    public Integer foldRight() {
+        return tree.foldRight(0, v -> acc -> acc + 1, l -> r -> l + r);
+    }
+
+    @Benchmark
+    public Integer streamInOrder() {
+        return tree.toStreamInOrder().toList().lengthMemoized();
+    }
+
+    @Benchmark
+    public Tree<Integer> treeFromSorted() {
+        return kind.equals("avl") ? AvlTree.treeFromSorted(sortedKeys) : Tree.treeFromSorted(sortedKeys);
+    }
+
+    @Benchmark
+    public Tree<Integer> merge() {
+        return tree.merge(other);
+    }
+
+    @Benchmark
+    public Tree<Integer> union() {
+        return tree.union(other);
+    }
+}
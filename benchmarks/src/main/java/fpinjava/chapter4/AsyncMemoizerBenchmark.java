@@ -0,0 +1,79 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latency of a call (and join) of an asynchronous function: a remote lookup stub answering after 1 ms,
+// called by 4 threads with keys drawn uniformly among 100. Look at the percentiles of SampleTime.
+// memoization: none (every call waits for the remote lookup), unbounded (memoizeAsync(f)),
+// expire (futures expire after 200 ms, so the next caller of a key waits for a new lookup),
+// refreshAhead (expire after 200 ms, refreshed in the background after 100 ms: the callers don't wait).
+// The number of remote lookups is printed at the end of each trial.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AsyncMemoizerBenchmark {
+
+    private static final int KEYS = 100;
+
+    @Param({"none", "unbounded", "expire", "refreshAhead"})
+    String memoization;
+
+    final AtomicLong lookups = new AtomicLong();
+    Function<Integer, CompletableFuture<Long>> f;
+
+    @Setup
+    public void setup() {
+        Function<Integer, CompletableFuture<Long>> remote = x -> {
+            lookups.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> x * 2L, CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS));
+        };
+        switch (memoization) {
+            case "none":
+                f = remote;
+                break;
+            case "unbounded":
+                f = Memoizer.memoizeAsync(remote);
+                break;
+            case "expire":
+                f = Memoizer.memoizeAsync(remote, CacheSpec.unbounded().expireAfterWrite(Duration.ofMillis(200)));
+                break;
+            default:
+                f = Memoizer.memoizeAsync(remote, CacheSpec.unbounded()
+                        .expireAfterWrite(Duration.ofMillis(200))
+                        .refreshAfterWrite(Duration.ofMillis(100)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%s: %d remote lookups%n", memoization, lookups.get());
+    }
+
+    @Benchmark
+    public Long call() {
+        return f.apply(ThreadLocalRandom.current().nextInt(KEYS)).join();
+    }
+}
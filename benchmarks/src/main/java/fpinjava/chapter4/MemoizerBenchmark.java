@@ -0,0 +1,134 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Memoized function called with keys drawn from a Zipfian distribution (exponent s) over 100,000 keys.
+// Each operation is a batch of 10,000 calls. The function costs about as much as 100 multiplications.
+// cache: concurrentHashMap is Memoizer.memoize(f) (unbounded), the others are MemoCache with maximumSize entries.
+// The hit rates are printed at the end of each trial: with a small cache, TINY_LFU keeps the hot keys better than LRU.
+// curriedNested / curriedMemoize3: a curried function of 3 arguments (20 values each), memoized layer by layer with
+// memoize() (one cache per partial application) or with memoize3() (a single cache keyed on the Tuple3 of arguments).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoizerBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"concurrentHashMap", "unbounded", "LRU", "TINY_LFU"})
+    String cache;
+
+    @Param({"1000"})
+    int maximumSize;
+
+    @Param({"0.99"})
+    double s;
+
+    int[] draws;
+    int next;
+    MemoCache<Integer, Long> memoCache;
+    Function<Integer, Long> f;
+
+    @Setup
+    public void setup() {
+        draws = zipf(KEYS, s, 1 << 20, new Random(42));
+        Function<Integer, Long> g = MemoizerBenchmark::cost;
+        if (cache.equals("concurrentHashMap")) {
+            f = Memoizer.memoize(g);
+        } else {
+            memoCache = MemoCache.of(cache.equals("unbounded")
+                    ? CacheSpec.unbounded()
+                    : CacheSpec.maximumSize(maximumSize, CacheSpec.Eviction.valueOf(cache)));
+            f = Memoizer.memoize(g, memoCache);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (memoCache != null) {
+            System.out.printf("%n%s maximumSize=%d: %s, hit rate %.1f%%%n",
+                    cache, maximumSize, memoCache.stats(), memoCache.stats().hitRate() * 100);
+        }
+    }
+
+    Function<Integer, Function<Integer, Function<Integer, Long>>> curriedNested = Memoizer.memoize(x ->
+            Memoizer.memoize(y ->
+                    Memoizer.memoize(z -> cost(x * 400 + y * 20 + z))));
+
+    Function<Integer, Function<Integer, Function<Integer, Long>>> curriedMemoize3 = Memoizer.memoize3(x -> y -> z ->
+            cost(x * 400 + y * 20 + z));
+
+    @Benchmark
+    public long curriedNested() {
+        return curried(curriedNested);
+    }
+
+    @Benchmark
+    public long curriedMemoize3() {
+        return curried(curriedMemoize3);
+    }
+
+    private long curried(Function<Integer, Function<Integer, Function<Integer, Long>>> f) {
+        long sum = 0;
+        for (int i = 0; i < BATCH; i++) {
+            int k = draws[next] % 8000;
+            sum += f.apply(k / 400).apply(k / 20 % 20).apply(k % 20);
+            next = (next + 1) & (draws.length - 1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long zipfian() {
+        long sum = 0;
+        for (int i = 0; i < BATCH; i++) {
+            sum += f.apply(draws[next]);
+            next = (next + 1) & (draws.length - 1);
+        }
+        return sum;
+    }
+
+    private static Long cost(Integer x) {
+        long h = x;
+        for (int i = 0; i < 100; i++) {
+            h = h * 0x9e3779b97f4a7c15L + i;
+        }
+        return h;
+    }
+
+    // count draws of ranks 0 to n - 1, rank k having a probability proportional to 1 / (k + 1)^s.
+    private static int[] zipf(int n, double s, int count, Random random) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, s);
+            cdf[k] = total;
+        }
+        int[] draws = new int[count];
+        for (int i = 0; i < count; i++) {
+            int k = Arrays.binarySearch(cdf, random.nextDouble() * total);
+            draws[i] = k >= 0 ? k : Math.min(-k - 1, n - 1);
+        }
+        return draws;
+    }
+}
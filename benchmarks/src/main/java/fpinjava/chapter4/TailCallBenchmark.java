@@ -0,0 +1,41 @@
+package fpinjava.chapter4;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static fpinjava.chapter4.TailCall.ret;
+import static fpinjava.chapter4.TailCall.sus;
+
+// size is the number of trampoline steps of a single eval().
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TailCallBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Benchmark
+    public Long eval() {
+        return sum(size, 0L).eval();
+    }
+
+    private static TailCall<Long> sum(int n, long acc) {
+        return n == 0
+                ? ret(acc)
+                : sus(() -> sum(n - 1, acc + n));
+    }
+}
@@ -0,0 +1,68 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Flattening count lists of 100 elements (10 million elements for 100,000 lists).
+// flatten: concatenation through CatList, then a single copy into a List. flattenWithBuilder / flatMap: each list copied once with List.Builder.
+// flattenWithConcat / flatMapWithMap: the previous implementations, reversing and rebuilding each list with concat().
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class FlattenBenchmark {
+
+    private static final int LENGTH = 100;
+
+    @Param({"1000", "100000"})
+    int count;
+
+    List<List<Integer>> lists;
+    List<Integer> ints;
+    List<Integer> hundred;
+
+    @Setup
+    public void setup() {
+        hundred = List.range(0, LENGTH);
+        ints = List.range(0, count);
+        lists = ints.map(i -> List.range(0, LENGTH));
+    }
+
+    @Benchmark
+    public List<Integer> flatten() {
+        return List.flatten(lists);
+    }
+
+    @Benchmark
+    public List<Integer> flattenWithBuilder() {
+        return List.flattenWithBuilder(lists);
+    }
+
+    @Benchmark
+    public List<Integer> flattenWithConcat() {
+        return List.flattenWithConcat(lists);
+    }
+
+    @Benchmark
+    public List<Integer> flatMap() {
+        return ints.flatMap(i -> hundred);
+    }
+
+    @Benchmark
+    public List<Integer> flatMapWithMap() {
+        return ints.flatMapWithMap(i -> hundred);
+    }
+}
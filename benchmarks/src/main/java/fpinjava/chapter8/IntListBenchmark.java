@@ -0,0 +1,57 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Boxed List<Integer> against IntList for the same numeric pipeline.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntListBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    List<Integer> boxed;
+    IntList ints;
+
+    @Setup
+    public void setup() {
+        ints = IntList.range(0, size);
+        boxed = List.chunked(ints.toList());
+    }
+
+    @Benchmark
+    public Integer sumBoxed() {
+        return boxed.foldLeft(0, acc -> i -> acc + i);
+    }
+
+    @Benchmark
+    public int sum() {
+        return ints.sum();
+    }
+
+    @Benchmark
+    public Integer mapFilterSumBoxed() {
+        return boxed.map(i -> i * 3).filter(i -> i % 2 == 0).foldLeft(0, acc -> i -> acc + i);
+    }
+
+    @Benchmark
+    public int mapFilterSum() {
+        return ints.map(i -> i * 3).filter(i -> i % 2 == 0).sum();
+    }
+}
@@ -0,0 +1,81 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput gives operations per second, SampleTime gives the latency percentiles (p0.50 ... p1.00).
+// Allocation rate comes from the GC profiler (see fpinjava.benchmarks.BenchmarkRunner or use -prof gc).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    // cons: List.list(), one Cons cell per element. chunked: List.chunked(), array chunks.
+    @Param({"cons", "chunked"})
+    String kind;
+
+    List<Integer> list;
+    List<Integer> empty;
+
+    @Setup
+    public void setup() {
+        Integer[] ints = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = i;
+        }
+        list = kind.equals("chunked") ? List.chunked(ints) : List.list(ints);
+        empty = kind.equals("chunked") ? List.chunked(List.list()) : List.list();
+    }
+
+    // Builds a list of size elements with cons(). Linear: each cell takes its length from its tail in O(1).
+    @Benchmark
+    public List<Integer> cons() {
+        List<Integer> result = empty;
+        for (int i = 0; i < size; i++) {
+            result = result.cons(i);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Integer foldLeft() {
+        return list.foldLeft(0, acc -> i -> acc + i);
+    }
+
+    @Benchmark
+    public List<Integer> drop() {
+        return list.drop(size);
+    }
+
+    @Benchmark
+    public List<Integer> reverse() {
+        return list.reverse();
+    }
+
+    @Benchmark
+    public List<Integer> map() {
+        return list.map(i -> i + 1);
+    }
+
+    @Benchmark
+    public List<Integer> filter() {
+        return list.filter(i -> i % 2 == 0);
+    }
+}
@@ -0,0 +1,118 @@
+package fpinjava.chapter8;
+
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter9.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static fpinjava.chapter7.Result.empty;
+import static fpinjava.chapter7.Result.success;
+
+// Building lists front to back with List.Builder, against the previous implementations that build the result
+// reversed, then reverse it (or fold it from the right, which reverses the source first).
+// Run with -prof gc: gc.alloc.rate.norm gives the bytes allocated per operation.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListBuilderBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    List<Integer> ints;
+    List<Integer> pair;
+    List<Tuple<Integer, Integer>> tuples;
+    Stream<Integer> stream;
+
+    @Setup
+    public void setup() {
+        ints = List.range(0, size);
+        pair = List.list(1, 2);
+        tuples = ints.map(i -> new Tuple<>(i, -i));
+        stream = Stream.from(0).take(size);
+    }
+
+    @Benchmark
+    public List<Integer> map() {
+        return ints.map(i -> i);
+    }
+
+    @Benchmark
+    public List<Integer> mapWithFoldRight() {
+        return ints.mapWithFoldRight(i -> i);
+    }
+
+    @Benchmark
+    public List<Integer> filter() {
+        return ints.filter(i -> (i & 1) == 0);
+    }
+
+    @Benchmark
+    public List<Integer> filterWithFoldRight() {
+        return ints.filterWithFoldRight(i -> (i & 1) == 0);
+    }
+
+    @Benchmark
+    public List<Integer> flatMap() {
+        return ints.flatMap(i -> pair);
+    }
+
+    @Benchmark
+    public List<Integer> flatMapWithCatList() {
+        return ints.flatMapWithCatList(i -> pair);
+    }
+
+    @Benchmark
+    public List<Integer> zipWith() {
+        return List.zipWith(ints, ints, a -> b -> a);
+    }
+
+    @Benchmark
+    public List<Integer> zipWithReverse() {
+        return List.zipWithReverse(ints, ints, a -> b -> a);
+    }
+
+    @Benchmark
+    public Tuple<List<Integer>, List<Integer>> unzip() {
+        return List.unzip(tuples);
+    }
+
+    @Benchmark
+    public Tuple<List<Integer>, List<Integer>> unzipWithFoldRight() {
+        return List.unzipWithFoldRight(tuples);
+    }
+
+    @Benchmark
+    public List<Integer> unfold() {
+        return List.unfold(0, i -> i < size ? success(new Tuple<>(i, i + 1)) : empty());
+    }
+
+    @Benchmark
+    public List<Integer> unfoldWithReverse() {
+        return List.unfoldWithReverse(0, i -> i < size ? success(new Tuple<>(i, i + 1)) : empty());
+    }
+
+    @Benchmark
+    public List<Integer> streamToList() {
+        return stream.toList();
+    }
+
+    @Benchmark
+    public List<Integer> streamToListWithReverse() {
+        return stream.toListWithReverse();
+    }
+}
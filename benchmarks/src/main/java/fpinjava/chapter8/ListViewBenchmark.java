@@ -0,0 +1,68 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// map(f).filter(p).map(g) followed by a terminal operation, on the List itself (one intermediate list per stage)
+// and on its view (all the stages applied in a single traversal).
+// exists looks for an element near the start of the list: the view stops there, the List maps and filters everything first.
+// Run with -prof gc: gc.alloc.rate.norm gives the bytes allocated per operation.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListViewBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    List<Integer> ints;
+
+    @Setup
+    public void setup() {
+        ints = List.range(0, size);
+    }
+
+    @Benchmark
+    public Integer foldLeft() {
+        return ints.map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1).foldLeft(0, a -> i -> a + i);
+    }
+
+    @Benchmark
+    public Integer viewFoldLeft() {
+        return ints.view().map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1).foldLeft(0, a -> i -> a + i);
+    }
+
+    @Benchmark
+    public List<Integer> toList() {
+        return ints.map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1);
+    }
+
+    @Benchmark
+    public List<Integer> viewToList() {
+        return ints.view().map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1).toList();
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return ints.map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1).exists(i -> i > 100);
+    }
+
+    @Benchmark
+    public boolean viewExists() {
+        return ints.view().map(i -> i * 3).filter(i -> (i & 1) == 0).map(i -> i + 1).exists(i -> i > 100);
+    }
+}
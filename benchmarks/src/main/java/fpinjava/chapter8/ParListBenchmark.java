@@ -0,0 +1,100 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Scaling of the parallel operations of List with the number of threads of the pool (compare with threads = 1).
+// cheap: one multiplication per element, where the task overhead dominates.
+// costly: Blackhole.consumeCPU(1000) per element (about 1 to 2 us), where the work dominates.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParListBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int threads;
+
+    // forkjoin: ForkJoinPool, fixed: Executors.newFixedThreadPool()
+    @Param({"forkjoin", "fixed"})
+    String executor;
+
+    List<Integer> list;
+    ExecutorService es;
+
+    @Setup
+    public void setup() {
+        Integer[] ints = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = i;
+        }
+        list = List.chunked(ints);
+        es = executor.equals("forkjoin") ? new ForkJoinPool(threads) : Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        es.shutdownNow();
+    }
+
+    private static Integer costly(Integer i) {
+        Blackhole.consumeCPU(1000);
+        return i * 3;
+    }
+
+    @Benchmark
+    public List<Integer> mapCheap() {
+        return list.map(i -> i * 3);
+    }
+
+    @Benchmark
+    public Object parMapCheap() {
+        return list.parMap(es, i -> i * 3);
+    }
+
+    @Benchmark
+    public Object parMapCostly() {
+        return list.parMap(es, ParListBenchmark::costly);
+    }
+
+    @Benchmark
+    public Object parFilterCheap() {
+        return list.parFilter(es, i -> i % 2 == 0);
+    }
+
+    @Benchmark
+    public Integer foldLeftCheap() {
+        return list.foldLeft(0, acc -> i -> acc + i);
+    }
+
+    @Benchmark
+    public Object parFoldLeftCheap() {
+        return list.parFoldLeft(es, 0, acc -> i -> acc + i, a -> b -> a + b);
+    }
+
+    @Benchmark
+    public Object parFoldLeftCostly() {
+        return list.parFoldLeft(es, 0, acc -> i -> acc + costly(i), a -> b -> a + b);
+    }
+}
@@ -0,0 +1,90 @@
+package fpinjava.chapter8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Positional access on size elements: each operation reads (or updates) 100 random indexes.
+// listGetAt: List.getAt(), linear. vectorGet / vectorSet: Vector.get() and set(), O(log32 n).
+// append builds a Vector of size elements with append(), foldLeft folds it.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorBenchmark {
+
+    private static final int READS = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    List<Integer> list;
+    Vector<Integer> vector;
+    int[] indexes;
+
+    @Setup
+    public void setup() {
+        Integer[] ints = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = i;
+        }
+        list = List.list(ints);
+        vector = Vector.of(ints);
+        Random random = new Random(42);
+        indexes = new int[READS];
+        for (int i = 0; i < READS; i++) {
+            indexes[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public void listGetAt(Blackhole bh) {
+        for (int i : indexes) {
+            bh.consume(list.getAt(i));
+        }
+    }
+
+    @Benchmark
+    public void vectorGet(Blackhole bh) {
+        for (int i : indexes) {
+            bh.consume(vector.get(i));
+        }
+    }
+
+    @Benchmark
+    public Vector<Integer> vectorSet() {
+        Vector<Integer> v = vector;
+        for (int i : indexes) {
+            v = v.set(i, -i).getOrElse(v);
+        }
+        return v;
+    }
+
+    @Benchmark
+    public Vector<Integer> append() {
+        Vector<Integer> v = Vector.empty();
+        for (int i = 0; i < size; i++) {
+            v = v.append(i);
+        }
+        return v;
+    }
+
+    @Benchmark
+    public Integer foldLeft() {
+        return vector.foldLeft(0, acc -> i -> acc + i);
+    }
+}
@@ -0,0 +1,85 @@
+package fpinjava.chapter9;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Reading a generated log file of several GB (about 55 bytes per line) through Stream.lines() and Stream.records().
+// The heap is limited to 256 MB, much less than the file: a source keeping the lines (or the file) in memory would fail.
+// take: only the first lines are read, whatever the size of the file.
+// jdkLines: java.nio.file.Files.lines().count(), for reference.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class MappedFileBenchmark {
+
+    @Param({"2"})
+    int gigabytes;
+
+    Path path;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempFile("mapped-file-benchmark", ".log");
+        long size = (long) gigabytes << 30;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 20)) {
+            for (long n = 0, i = 0; n < size; i++) {
+                byte[] line = ("2026-10-18T12:00:00.000 INFO request " + i + " took " + i % 1000 + " ms\n").getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                n += line.length;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public boolean lines() {
+        return Stream.lines(path).getOrElse(Stream.empty()).exists(String::isEmpty);
+    }
+
+    @Benchmark
+    public boolean linesPipeline() {
+        return Stream.lines(path).getOrElse(Stream.empty()).map(String::length).filter(n -> n > 200).exists(n -> n < 0);
+    }
+
+    @Benchmark
+    public boolean records() {
+        return Stream.records(path, 64).getOrElse(Stream.empty()).exists(r -> r[0] == 0);
+    }
+
+    @Benchmark
+    public Object take() {
+        return Stream.lines(path).getOrElse(Stream.empty()).take(1000).toList();
+    }
+
+    @Benchmark
+    public long jdkLines() throws IOException {
+        try (java.util.stream.Stream<String> lines = Files.lines(path)) {
+            return lines.count();
+        }
+    }
+}
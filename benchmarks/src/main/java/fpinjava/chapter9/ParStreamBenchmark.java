@@ -0,0 +1,82 @@
+package fpinjava.chapter9;
+
+import fpinjava.chapter8.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+// Stream.parallel() against the sequential fused pipeline, with the number of threads of the pool (compare with threads = 1).
+// costly: Blackhole.consumeCPU(1000) per element in map (see ParListBenchmark).
+// jdkParallel*: the same pipeline on a JDK parallel stream built from Stream.spliterator().
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParStreamBenchmark {
+
+    @Param({"10000", "100000"})
+    int size;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    ForkJoinPool es;
+
+    @Setup
+    public void setup() {
+        es = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        es.shutdownNow();
+    }
+
+    private static Integer costly(Integer i) {
+        Blackhole.consumeCPU(1000);
+        return i * 3;
+    }
+
+    @Benchmark
+    public List<Integer> sequentialCheap() {
+        return Stream.from(0, 1024).take(size).map(i -> i * 3).filter(i -> i % 2 == 0).toList();
+    }
+
+    @Benchmark
+    public Object parallelCheap() {
+        return Stream.from(0, 1024).take(size).parallel(es).map(i -> i * 3).filter(i -> i % 2 == 0).toList();
+    }
+
+    @Benchmark
+    public List<Integer> sequentialCostly() {
+        return Stream.from(0, 1024).take(size).map(ParStreamBenchmark::costly).filter(i -> i % 2 == 0).toList();
+    }
+
+    @Benchmark
+    public Object parallelCostly() {
+        return Stream.from(0, 1024).take(size).parallel(es).map(ParStreamBenchmark::costly).filter(i -> i % 2 == 0).toList();
+    }
+
+    @Benchmark
+    public Object jdkParallelCostly() throws Exception {
+        return es.submit(() -> StreamSupport.stream(Stream.from(0, 1024).take(size).spliterator(), true)
+                .map(ParStreamBenchmark::costly).filter(i -> i % 2 == 0).collect(Collectors.toList())).get();
+    }
+}
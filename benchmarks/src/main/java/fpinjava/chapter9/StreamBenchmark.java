@@ -0,0 +1,93 @@
+package fpinjava.chapter9;
+
+import fpinjava.chapter8.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Streams are lazy, so each invocation builds the stream and forces it with a terminal operation.
+// pipeline*: map, filter, map over the same elements. Divide gc.alloc.rate.norm by size for the allocation per element.
+// pipelineExists forces the stream without building a List, so it only measures the stream cells.
+// *Chunked: same pipelines on a chunked stream (chunks of 1024 elements), where map and filter run chunk by chunk.
+// *WithFoldRight, append and foldRightSum measure foldRightStackSafe(), also without building a List (stack-safe at every size).
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Benchmark
+    public List<Integer> filter() {
+        return Stream.from(0).take(size).filter(i -> i % 2 == 0).toList();
+    }
+
+    @Benchmark
+    public List<Integer> map() {
+        return Stream.from(0).take(size).map(i -> i + 1).toList();
+    }
+
+    @Benchmark
+    public List<Integer> drop() {
+        return Stream.from(0).drop(size).take(1).toList();
+    }
+
+    @Benchmark
+    public List<Integer> pipeline() {
+        return Stream.from(0).map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1).take(size).toList();
+    }
+
+    @Benchmark
+    public boolean pipelineExists() {
+        return Stream.from(0).take(size).map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1).exists(i -> i < 0);
+    }
+
+    @Benchmark
+    public long foldRightSum() {
+        return Stream.from(0).take(size).foldRightStackSafe(() -> 0L, i -> t -> t.map(s -> i + s));
+    }
+
+    @Benchmark
+    public boolean mapWithFoldRight() {
+        return Stream.from(0).take(size).mapWithFoldRight(i -> i + 1).exists(i -> i < 0);
+    }
+
+    // One element out of two is mapped to an empty stream
+    @Benchmark
+    public boolean flatMapWithFoldRight() {
+        return Stream.from(0).take(size).flatMapWithFoldRight(i -> i % 2 == 0 ? Stream.from(i).take(2) : Stream.<Integer>empty()).exists(i -> i < 0);
+    }
+
+    @Benchmark
+    public boolean append() {
+        return Stream.from(0).take(size / 2).append(() -> Stream.from(0).take(size / 2)).exists(i -> i < 0);
+    }
+
+    @Benchmark
+    public List<Integer> pipelineChunked() {
+        return Stream.from(0, 1024).map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1).take(size).toList();
+    }
+
+    @Benchmark
+    public boolean pipelineExistsChunked() {
+        return Stream.from(0, 1024).take(size).map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1).exists(i -> i < 0);
+    }
+
+    @Benchmark
+    public boolean rechunk() {
+        return Stream.from(0).take(size).rechunk(1024).map(i -> i * 3).filter(i -> i % 2 == 0).exists(i -> i < 0);
+    }
+}
@@ -1,5 +1,7 @@
 package fpinjava.chapter1;
 
+import java.util.Objects;
+
 public class Tuple<T, U> {
     public T _1;
     public U _2;
@@ -9,4 +11,19 @@ public class Tuple<T, U> {
         _2 = u;
     }
 
+    // Tuples are compared by value, so that they can be used as keys (e.g. of memoized functions).
+    // A tuple used as a key must not be modified.
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Tuple)) return false;
+        else {
+            Tuple<?, ?> that = (Tuple<?, ?>) o;
+            return Objects.equals(_1, that._1) && Objects.equals(_2, that._2);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(_1) + Objects.hashCode(_2);
+    }
 }
@@ -0,0 +1,395 @@
+package fpinjava.chapter10;
+
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter2.Function;
+import fpinjava.chapter7.Result;
+import fpinjava.chapter8.List;
+import fpinjava.chapter9.Stream;
+
+// Self-balancing mode of Tree.
+// Tree.T is a plain ordered binary tree: inserting ordered elements (e.g. timestamps) produces a totally unbalanced tree,
+// which is in fact a singly linked list, with O(n) member() and a recursive insert() which overflows the stack.
+// AvlTree has the same API but keeps the heights of the left and right subtrees of every node within 1 of each other
+// (rebalancing with rotations after insert() and remove()), so the height is always O(log(n)).
+// The height is at most 1.44 * log2(n), so the recursion in insert(), remove() and member() is stack-safe:
+// a tree of 1M elements has a height of at most 28.
+// Every node caches its height and size.
+public abstract class AvlTree<A extends Comparable<A>> extends Tree<A> {
+
+    @Override
+    public abstract AvlTree<A> insert(A a);
+    @Override
+    public abstract AvlTree<A> remove(A a);
+
+    @SuppressWarnings("rawtypes")
+    private static final AvlTree EMPTY = new Empty();
+
+    private AvlTree() {}
+
+    private static class Empty<A extends Comparable<A>> extends AvlTree<A> {
+
+        private Empty() {
+        }
+
+        @Override
+        public A value() {
+            throw new IllegalStateException("value called on empty tree");
+        }
+
+        @Override
+        Tree<A> left() {
+            throw new IllegalStateException("left called on empty tree");
+        }
+
+        @Override
+        Tree<A> right() {
+            throw new IllegalStateException("right called on empty tree");
+        }
+
+        @Override
+        public String toString() {
+            return "E";
+        }
+
+        @Override
+        public AvlTree<A> insert(A insertedValue) {
+            return new T<>(this, insertedValue, this);
+        }
+
+        @Override
+        public boolean member(A a) {
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int height() {
+            return -1;
+        }
+
+        @Override
+        public Result<A> max() {
+            return Result.empty();
+        }
+
+        @Override
+        public Result<A> min() {
+            return Result.empty();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public AvlTree<A> remove(A a) {
+            return this;
+        }
+
+        @Override
+        protected Tree<A> removeMerge(Tree<A> ta) {
+            return merge(ta);
+        }
+
+        @Override
+        protected List<A> toListPreOrderLeft() {
+            return List.list();
+        }
+
+        @Override
+        public <B> B foldLeft(B identity, Function<B, Function<A, B>> f, Function<B, Function<B, B>> g) {
+            return identity;
+        }
+
+        @Override
+        public <B> B foldRight(B identity, Function<A, Function<B, B>> f, Function<B, Function<B, B>> g) {
+            return identity;
+        }
+
+        @Override
+        public <B> B foldInOrder(B identity, Function<B, Function<A, Function<B, B>>> f) {
+            return identity;
+        }
+
+        @Override
+        public <B> B foldPreOrder(B identity, Function<A, Function<B, Function<B, B>>> f) {
+            return identity;
+        }
+
+        @Override
+        public <B> B foldPostOrder(B identity, Function<B, Function<B, Function<A, B>>> f) {
+            return identity;
+        }
+
+        @Override
+        public Tuple<Tree<A>, Tree<A>> split(A a) {
+            return new Tuple<>(this, this);
+        }
+    }
+
+    private static class T<A extends Comparable<A>> extends AvlTree<A> {
+
+        private final AvlTree<A> left;
+        private final A value;
+        private final AvlTree<A> right;
+        private final int height;
+        private final int size;
+
+        private T(AvlTree<A> left, A value, AvlTree<A> right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            this.height = 1 + Math.max(left.height(), right.height());
+            this.size = 1 + left.size() + right.size();
+        }
+
+        @Override
+        public A value() {
+            return value;
+        }
+
+        @Override
+        Tree<A> left() {
+            return left;
+        }
+
+        @Override
+        Tree<A> right() {
+            return right;
+        }
+
+        @Override
+        public String toString() {
+            return "T";
+        }
+
+        @Override
+        public AvlTree<A> insert(A insertedValue) {
+            return insertedValue.compareTo(this.value) < 0
+                    ? balance(left.insert(insertedValue), value, right)
+                    : insertedValue.compareTo(this.value) > 0
+                        ? balance(left, value, right.insert(insertedValue))
+                        : new T<>(left, insertedValue, right);
+        }
+
+        @Override
+        public boolean member(A value) {
+            return value.compareTo(this.value) < 0
+                    ? left.member(value)
+                    : value.compareTo(this.value) > 0
+                        ? right.member(value)
+                        : true;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public Result<A> max() {
+            return right.max().orElse(() -> Result.success(value));
+        }
+
+        @Override
+        public Result<A> min() {
+            return left.min().orElse(() -> Result.success(value));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        // The removed node is replaced by the minimum of its right subtree (if any), then every node on the path is rebalanced.
+        @Override
+        public AvlTree<A> remove(A a) {
+            if (a.compareTo(this.value) < 0) {
+                return balance(left.remove(a), value, right);
+            } else if (a.compareTo(this.value) > 0) {
+                return balance(left, value, right.remove(a));
+            } else if (right.isEmpty()) {
+                return left;
+            } else {
+                A rightMin = right.min().getOrElse(value);
+                return balance(left, rightMin, right.remove(rightMin));
+            }
+        }
+
+        @Override
+        protected Tree<A> removeMerge(Tree<A> ta) {
+            return merge(ta);
+        }
+
+        @Override
+        public <B> B foldLeft(B identity, Function<B, Function<A, B>> f, Function<B, Function<B, B>> g) {
+            return g.apply(right.foldLeft(identity, f, g))
+                    .apply(f.apply(left.foldLeft(identity, f, g)).apply(this.value));
+        }
+
+        @Override
+        public <B> B foldRight(B identity, Function<A, Function<B, B>> f, Function<B, Function<B, B>> g) {
+            return g.apply(f.apply(this.value).apply(left.foldRight(identity, f, g)))
+                    .apply(right.foldRight(identity, f, g));
+        }
+
+        @Override
+        public <B> B foldInOrder(B identity, Function<B, Function<A, Function<B, B>>> f) {
+            return f.apply(left.foldInOrder(identity, f))
+                    .apply(value).apply(right.foldInOrder(identity, f));
+        }
+
+        @Override
+        public <B> B foldPreOrder(B identity, Function<A, Function<B, Function<B, B>>> f) {
+            return f.apply(value).apply(left.foldPreOrder(identity, f))
+                    .apply(right.foldPreOrder(identity, f));
+        }
+
+        @Override
+        public <B> B foldPostOrder(B identity, Function<B, Function<B, Function<A, B>>> f) {
+            return f.apply(left.foldPostOrder(identity, f))
+                    .apply(right.foldPostOrder(identity, f)).apply(value);
+        }
+
+        @Override
+        protected List<A> toListPreOrderLeft() {
+            return foldLeft(List.<A>list(), l -> l::cons).reverse();
+        }
+
+        // Same as Tree.T.split(), but the nodes on the path are rebuilt with join() so that both halves stay balanced.
+        @Override
+        public Tuple<Tree<A>, Tree<A>> split(A a) {
+            if (a.compareTo(value) <= 0) {
+                Tuple<Tree<A>, Tree<A>> t = left.split(a);
+                return new Tuple<>(t._1, join((AvlTree<A>) t._2, value, right));
+            } else {
+                Tuple<Tree<A>, Tree<A>> t = right.split(a);
+                return new Tuple<>(join(left, value, (AvlTree<A>) t._1), t._2);
+            }
+        }
+    }
+
+    // Builds a balanced tree from left, value and right, where all elements of left are lower than value
+    // and all elements of right are greater, whatever the difference of heights.
+    // The lower tree is attached at the right height along the spine of the higher one: O(difference of heights).
+    private static <A extends Comparable<A>> AvlTree<A> join(AvlTree<A> left, A value, AvlTree<A> right) {
+        if (left.height() > right.height() + 1) {
+            T<A> l = (T<A>) left;
+            return balance(l.left, l.value, join(l.right, value, right));
+        }
+        if (right.height() > left.height() + 1) {
+            T<A> r = (T<A>) right;
+            return balance(join(left, value, r.left), r.value, r.right);
+        }
+        return new T<>(left, value, right);
+    }
+
+    // Builds a node from two subtrees whose heights differ by at most 2 (which is the case after a single insert() or remove()).
+    // If they differ by 2, the higher subtree is rotated:
+    // - single rotation when its outer grandchild is the highest (left-left or right-right case),
+    // - double rotation otherwise (left-right or right-left case).
+    private static <A extends Comparable<A>> AvlTree<A> balance(AvlTree<A> left, A value, AvlTree<A> right) {
+        if (left.height() > right.height() + 1) {
+            T<A> l = (T<A>) left;
+            if (l.left.height() >= l.right.height()) {
+                return new T<>(l.left, l.value, new T<>(l.right, value, right));
+            }
+            T<A> lr = (T<A>) l.right;
+            return new T<>(new T<>(l.left, l.value, lr.left), lr.value, new T<>(lr.right, value, right));
+        }
+        if (right.height() > left.height() + 1) {
+            T<A> r = (T<A>) right;
+            if (r.right.height() >= r.left.height()) {
+                return new T<>(new T<>(left, value, r.left), r.value, r.right);
+            }
+            T<A> rl = (T<A>) r.left;
+            return new T<>(new T<>(left, value, rl.left), rl.value, new T<>(rl.right, r.value, r.right));
+        }
+        return new T<>(left, value, right);
+    }
+
+    // Inserting the elements one by one keeps the result balanced, whatever the shape of the merged tree.
+    // O(m log(n + m)), so a tree that is not much smaller than this one is merged by union() in O(n + m) instead.
+    @Override
+    public Tree<A> merge(Tree<A> a) {
+        return a.size() * 8 < size()
+                ? a.foldLeft(this, t -> t::insert)
+                : union(a);
+    }
+
+    @Override
+    public AvlTree<A> union(Tree<A> other) {
+        return (AvlTree<A>) super.union(other);
+    }
+
+    @Override
+    public AvlTree<A> intersection(Tree<A> other) {
+        return (AvlTree<A>) super.intersection(other);
+    }
+
+    @Override
+    public AvlTree<A> difference(Tree<A> other) {
+        return (AvlTree<A>) super.difference(other);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    AvlTree<A> balanced(Object[] as, int from, int to) {
+        if (from >= to) {
+            return empty();
+        }
+        int mid = (from + to) >>> 1;
+        return new T<>(balanced(as, from, mid), (A) as[mid], balanced(as, mid + 1, to));
+    }
+
+    @Override
+    public <B extends Comparable<B>> AvlTree<B> map(Function<A, B> f) {
+        return foldLeft(AvlTree.<B>empty(), t -> a -> t.insert(f.apply(a)));
+    }
+
+    public static <A extends Comparable<A>> AvlTree<A> tree(List<A> list) {
+        return list.foldLeft(empty(), t -> t::insert);
+    }
+
+    // The arrays are only read here, as in Tree.treeFromSorted(A...).
+    @SafeVarargs
+    public static <A extends Comparable<A>> AvlTree<A> tree(A... as) {
+        AvlTree<A> result = empty();
+        for (A a : as) {
+            result = result.insert(a);
+        }
+        return result;
+    }
+
+    public static <A extends Comparable<A>> AvlTree<A> treeFromSorted(List<A> list) {
+        return (AvlTree<A>) fromAscending(AvlTree.<A>empty(), Ascending.of(list));
+    }
+
+    @SafeVarargs
+    public static <A extends Comparable<A>> AvlTree<A> treeFromSorted(A... as) {
+        Ascending<A> ascending = new Ascending<>();
+        for (A a : as) {
+            ascending.add(a);
+        }
+        return (AvlTree<A>) fromAscending(AvlTree.<A>empty(), ascending);
+    }
+
+    public static <A extends Comparable<A>> AvlTree<A> treeFromSorted(Stream<A> stream) {
+        return (AvlTree<A>) fromAscending(AvlTree.<A>empty(), Ascending.of(stream));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A extends Comparable<A>> AvlTree<A> empty() {
+        return EMPTY;
+    }
+}
@@ -1,8 +1,14 @@
 package fpinjava.chapter10;
 
+import fpinjava.chapter1.Tuple;
 import fpinjava.chapter2.Function;
 import fpinjava.chapter7.Result;
 import fpinjava.chapter8.List;
+import fpinjava.chapter9.Stream;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 
 // TODO
 // List has limitations:
@@ -33,6 +39,7 @@ import fpinjava.chapter8.List;
 // - Because the standard stack size allows for minimum 1000 recursive calls/ stack frames.
 // - A perfectly balanced binary tree of height 1000 contains 2^1000 elements, you’ll never have enough main memory for such data.
 // - But the problem is not all trees are perfectly balanced and therefore we need a mechanism to balance them.
+//   AvlTree is the self-balancing mode of Tree: same API, but its height is always O(log(n)).
 // - A perfectly imbalanced tree is in fact a singly linked list
 // Insertion order:
 // - The the balance of the tree depends on the order in which elements are inserted.
@@ -84,6 +91,10 @@ public abstract class Tree<A extends Comparable<A>> {
 
     public abstract <B extends Comparable<B>> Tree<B> map(Function<A, B> f);
 
+    // Splits the tree into the elements lower than a and the elements greater than or equal to a.
+    // Only the nodes on the path to a are rebuilt, so this is O(height): O(log n) for a balanced tree (see AvlTree).
+    public abstract Tuple<Tree<A>, Tree<A>> split(A a);
+
     @SuppressWarnings("rawtypes")
     private static Tree EMPTY = new Empty();
 
@@ -154,7 +165,7 @@ public abstract class Tree<A extends Comparable<A>> {
 
         @Override
         protected Tree<A> removeMerge(Tree<A> ta) {
-            return this;
+            return ta;
         }
 
         @Override
@@ -197,6 +208,11 @@ public abstract class Tree<A extends Comparable<A>> {
             return empty();
         }
 
+        @Override
+        public Tuple<Tree<A>, Tree<A>> split(A a) {
+            return new Tuple<>(this, this);
+        }
+
     }
 
     public static class T<A extends Comparable<A>> extends Tree<A> {
@@ -204,11 +220,15 @@ public abstract class Tree<A extends Comparable<A>> {
         private A value;
         private Tree<A> left;
         private Tree<A> right;
+        private final int size;   // Cached (like List.Cons.length) so that size() and height() are O(1)
+        private final int height; // instead of a traversal of the whole tree.
 
         private T(Tree<A> left, A value, Tree<A> right){
             this.left = left;
             this.value = value;
             this.right = right;
+            this.size = 1 + left.size() + right.size();
+            this.height = 1 + Math.max(left.height(), right.height());
         }
 
         @Override
@@ -251,22 +271,31 @@ public abstract class Tree<A extends Comparable<A>> {
 
         @Override
         public int size() {
-            return 1 + left.size() + right.size();
+            return size;
         }
 
         @Override
         public int height() {
-            return 1 + Math.max(left.height(), right.height());
+            return height;
         }
 
+        // max() and min() are loops, so that they are stack-safe on a degenerate tree.
         @Override
         public Result<A> max() {
-            return right.max().orElse(() -> Result.success(value));
+            Tree<A> tree = this;
+            while (!tree.right().isEmpty()) {
+                tree = tree.right();
+            }
+            return Result.success(tree.value());
         }
 
         @Override
         public Result<A> min() {
-            return left.min().orElse(() -> Result.success(value));
+            Tree<A> tree = this;
+            while (!tree.left().isEmpty()) {
+                tree = tree.left();
+            }
+            return Result.success(tree.value());
         }
 
         @Override
@@ -317,7 +346,9 @@ public abstract class Tree<A extends Comparable<A>> {
         @Override
         public <B> B foldLeft(B identity, Function<B, Function<A, B>> f, Function<B, Function<B, B>> g) { // ote the signature of f is different than foldRight
                                                                                       // Apply g to
-            return g.apply(right.foldLeft(identity, f, g))                            // folded right subtree and
+            return height >= MAX_RECURSIVE_HEIGHT
+                    ? fold(this, t -> t.foldLeft(identity, f, g), v -> l -> r -> g.apply(r).apply(f.apply(l).apply(v)))
+                    : g.apply(right.foldLeft(identity, f, g))                         // folded right subtree and
                     .apply(f.apply(left.foldLeft(identity, f, g)).apply(this.value)); // result of applying f to folded left subtree and root-value
             // Note that there is other implementation possible as below.
             // This implementation is also correct according to the definition of folding, but result might be different.
@@ -330,7 +361,9 @@ public abstract class Tree<A extends Comparable<A>> {
         @Override
         public <B> B foldRight(B identity, Function<A, Function<B, B>> f, Function<B, Function<B, B>> g) { // Note the signature of f is different than foldLeft
                                                                                       // Apply g to
-            return g.apply(f.apply(this.value).apply(left.foldRight(identity, f, g))) // result of applying f to root-value and folded left subtree and
+            return height >= MAX_RECURSIVE_HEIGHT
+                    ? fold(this, t -> t.foldRight(identity, f, g), v -> l -> r -> g.apply(f.apply(v).apply(l)).apply(r))
+                    : g.apply(f.apply(this.value).apply(left.foldRight(identity, f, g))) // result of applying f to root-value and folded left subtree and
                     .apply(right.foldRight(identity, f, g));                          // folded right subtree
             // Note that there is other implementation possible as below.
             // This implementation is also correct according to the definition of folding, but result might be different.
@@ -341,26 +374,32 @@ public abstract class Tree<A extends Comparable<A>> {
 
         @Override
         public <B> B foldInOrder(B identity, Function<B, Function<A, Function<B, B>>> f) {
-            return f.apply(left.foldInOrder(identity, f))
+            return height >= MAX_RECURSIVE_HEIGHT
+                    ? fold(this, t -> t.foldInOrder(identity, f), v -> l -> r -> f.apply(l).apply(v).apply(r))
+                    : f.apply(left.foldInOrder(identity, f))
                     .apply(value).apply(right.foldInOrder(identity, f));
         }
 
         @Override
         public <B> B foldPreOrder(B identity, Function<A, Function<B, Function<B, B>>> f) {
-            return f.apply(value).apply(left.foldPreOrder(identity, f))
+            return height >= MAX_RECURSIVE_HEIGHT
+                    ? fold(this, t -> t.foldPreOrder(identity, f), f)
+                    : f.apply(value).apply(left.foldPreOrder(identity, f))
                     .apply(right.foldPreOrder(identity, f));
         }
 
         @Override
         public <B> B foldPostOrder(B identity, Function<B, Function<B, Function<A, B>>> f) {
-            return f.apply(left.foldPostOrder(identity, f))
+            return height >= MAX_RECURSIVE_HEIGHT
+                    ? fold(this, t -> t.foldPostOrder(identity, f), v -> l -> r -> f.apply(l).apply(r).apply(v))
+                    : f.apply(left.foldPostOrder(identity, f))
                     .apply(right.foldPostOrder(identity, f)).apply(value);
         }
 
+        // Recursion with concat() copied the left list at every level (O(n log(n)) allocations, stack-unsafe).
         @Override
         protected List<A> toListPreOrderLeft() {
-            return left().toListPreOrderLeft()
-                    .concat(right().toListPreOrderLeft()).cons(value);
+            return foldLeft(List.<A>list(), l -> l::cons).reverse();
         }
 
         @Override
@@ -369,6 +408,34 @@ public abstract class Tree<A extends Comparable<A>> {
                     t1 -> i -> t2 -> Tree.tree(t1, f.apply(i), t2));
         }
 
+        // The path to a is recorded in an array, then the two halves are rebuilt from the bottom up:
+        // a degenerate tree (built from sorted values) has a path as long as the tree.
+        @Override
+        public Tuple<Tree<A>, Tree<A>> split(A a) {
+            @SuppressWarnings("unchecked")
+            T<A>[] path = (T<A>[]) new T<?>[height + 1];
+            boolean[] toLeft = new boolean[height + 1];
+            int n = 0;
+            Tree<A> tree = this;
+            while (!tree.isEmpty()) {
+                T<A> t = (T<A>) tree;
+                path[n] = t;
+                toLeft[n] = a.compareTo(t.value) <= 0;
+                tree = toLeft[n++] ? t.left : t.right;
+            }
+            Tree<A> lower = tree;
+            Tree<A> higher = tree;
+            while (n > 0) {
+                T<A> t = path[--n];
+                if (toLeft[n]) {
+                    higher = new T<>(higher, t.value, t.right);
+                } else {
+                    lower = new T<>(t.left, t.value, lower);
+                }
+            }
+            return new Tuple<>(lower, higher);
+        }
+
     }
 
     public static <A extends Comparable<A>> boolean lt(A first, A second) {
@@ -397,8 +464,273 @@ public abstract class Tree<A extends Comparable<A>> {
                 : Tree.<A>empty().insert(a).merge(t1).merge(t2);
     }
 
+    // Pre-order left, with an explicit stack instead of building the list of toListPreOrderLeft().
     public <B> B foldLeft(B identity, Function<B, Function<A, B>> f) {
-        return toListPreOrderLeft().foldLeft(identity, f);
+        B acc = identity;
+        Deque<Tree<A>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Tree<A> tree = stack.pop();
+            if (!tree.isEmpty()) {
+                acc = f.apply(acc).apply(tree.value());
+                stack.push(tree.right());
+                stack.push(tree.left());
+            }
+        }
+        return acc;
+    }
+
+    // Lazy in-order view: the elements are produced in ascending order, one by one, as the stream is consumed.
+    // The state is the stack of the nodes whose value and right subtree are still to be visited.
+    public Stream<A> toStreamInOrder() {
+        return Stream.unfold(pushLeftSpine(this, List.list()),
+                stack -> stack.headOption().map(tree -> new Tuple<>(tree.value(), pushLeftSpine(tree.right(), stack.drop(1)))));
+    }
+    private static <A extends Comparable<A>> List<Tree<A>> pushLeftSpine(Tree<A> tree, List<Tree<A>> stack) {
+        List<Tree<A>> result = stack;
+        for (Tree<A> t = tree; !t.isEmpty(); t = t.left()) {
+            result = result.cons(t);
+        }
+        return result;
+    }
+
+    // Trees lower than this are folded recursively, which is the fastest (the JIT removes most of the allocations).
+    // Higher trees (i.e. degenerate ones, a balanced tree of this height would not fit in memory)
+    // are folded by fold() with an explicit stack, which is on the heap and can't overflow.
+    static final int MAX_RECURSIVE_HEIGHT = 256;
+
+    // Engine behind all the fold orders of high trees: combine takes the value of a node,
+    // the result of its left subtree and the result of its right subtree.
+    // The nodes are visited in post-order with an explicit stack, and the results of the subtrees wait on a second stack
+    // until their parent combines them. Subtrees lower than MAX_RECURSIVE_HEIGHT are folded with foldLow (recursively).
+    @SuppressWarnings("unchecked")
+    static <A extends Comparable<A>, B> B fold(Tree<A> tree, Function<Tree<A>, B> foldLow, Function<A, Function<B, Function<B, B>>> combine) {
+        Tree<A>[] nodes = (Tree<A>[]) new Tree<?>[16];
+        boolean[] combined = new boolean[16];
+        Object[] results = new Object[16];
+        int n = 0;
+        int r = 0;
+        nodes[n++] = tree;
+        while (n > 0) {
+            Tree<A> t = nodes[--n];
+            if (combined[n]) {
+                B right = (B) results[--r];
+                B left = (B) results[--r];
+                results[r++] = combine.apply(t.value()).apply(left).apply(right);
+            } else if (t.height() < MAX_RECURSIVE_HEIGHT) {
+                if (r == results.length) {
+                    results = Arrays.copyOf(results, r * 2);
+                }
+                results[r++] = foldLow.apply(t);
+            } else {
+                if (n + 3 > nodes.length) {
+                    nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                    combined = Arrays.copyOf(combined, combined.length * 2);
+                }
+                nodes[n] = t;
+                combined[n++] = true;
+                nodes[n] = t.right();
+                combined[n++] = false;
+                nodes[n] = t.left();
+                combined[n++] = false;
+            }
+        }
+        return (B) results[0];
+    }
+
+    // Order statistics, based on the cached sizes: O(height) instead of an in-order fold of the whole tree.
+    // Element at the given index in the in-order (ascending) traversal.
+    public Result<A> getAt(int index) {
+        if (index < 0 || index >= size()) {
+            return Result.failure("Index out of bounds, index: " + index);
+        }
+        Tree<A> tree = this;
+        int i = index;
+        while (i != tree.left().size()) {
+            if (i < tree.left().size()) {
+                tree = tree.left();
+            } else {
+                i = i - tree.left().size() - 1;
+                tree = tree.right();
+            }
+        }
+        return Result.success(tree.value());
+    }
+
+    // Number of elements lower than a, which is the index of a if it is a member.
+    public int rank(A a) {
+        Tree<A> tree = this;
+        int rank = 0;
+        while (!tree.isEmpty()) {
+            if (a.compareTo(tree.value()) <= 0) {
+                tree = tree.left();
+            } else {
+                rank = rank + tree.left().size() + 1;
+                tree = tree.right();
+            }
+        }
+        return rank;
+    }
+
+    // Union, intersection and difference merge the two in-order sequences in O(size() + other.size()),
+    // then bulk load the result, which is perfectly balanced.
+    // merge() (exercise) reinserts the nodes of the other tree, which is better when that tree is much smaller.
+    public Tree<A> union(Tree<A> other) {
+        return mergeInOrder(other, true, true, true);
+    }
+
+    public Tree<A> intersection(Tree<A> other) {
+        return mergeInOrder(other, false, true, false);
+    }
+
+    public Tree<A> difference(Tree<A> other) {
+        return mergeInOrder(other, true, false, false);
+    }
+
+    private Tree<A> mergeInOrder(Tree<A> other, boolean keepThisOnly, boolean keepBoth, boolean keepOtherOnly) {
+        Object[] as = toArrayInOrder(this);
+        Object[] bs = toArrayInOrder(other);
+        Object[] result = new Object[as.length + bs.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < as.length && j < bs.length) {
+            int c = compare(as[i], bs[j]);
+            if (c < 0) {
+                if (keepThisOnly) result[n++] = as[i];
+                i++;
+            } else if (c > 0) {
+                if (keepOtherOnly) result[n++] = bs[j];
+                j++;
+            } else {
+                if (keepBoth) result[n++] = as[i];
+                i++;
+                j++;
+            }
+        }
+        while (keepThisOnly && i < as.length) {
+            result[n++] = as[i++];
+        }
+        while (keepOtherOnly && j < bs.length) {
+            result[n++] = bs[j++];
+        }
+        return balanced(result, 0, n);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A extends Comparable<A>> int compare(Object a1, Object a2) {
+        return ((A) a1).compareTo((A) a2);
+    }
+
+    private static <A extends Comparable<A>> Object[] toArrayInOrder(Tree<A> tree) {
+        Object[] result = new Object[tree.size()];
+        int n = 0;
+        Deque<Tree<A>> stack = new ArrayDeque<>();
+        Tree<A> t = tree;
+        while (!t.isEmpty() || !stack.isEmpty()) {
+            for (; !t.isEmpty(); t = t.left()) {
+                stack.push(t);
+            }
+            t = stack.pop();
+            result[n++] = t.value();
+            t = t.right();
+        }
+        return result;
+    }
+
+    // Perfectly balanced tree of the elements from (inclusive) to to (exclusive) of an ascending array without duplicates:
+    // the middle element is the root and each half is built the same way. O(n), and the recursion depth is log2(n).
+    // AvlTree overrides it to build AvlTree nodes (a perfectly balanced tree is a valid AVL tree).
+    @SuppressWarnings("unchecked")
+    Tree<A> balanced(Object[] as, int from, int to) {
+        if (from >= to) {
+            return empty();
+        }
+        int mid = (from + to) >>> 1;
+        return new T<>(balanced(as, from, mid), (A) as[mid], balanced(as, mid + 1, to));
+    }
+
+    // Buffer of the elements of a bulk load. add() checks the order on the fly, so that the elements
+    // are only sorted if they were not already ascending. toArray() keeps equal elements once.
+    static final class Ascending<A extends Comparable<A>> {
+
+        private Object[] elements = new Object[16];
+        private int n = 0;
+        private boolean sorted = true;
+
+        @SuppressWarnings("unchecked")
+        void add(A a) {
+            if (n > 0 && sorted && a.compareTo((A) elements[n - 1]) < 0) {
+                sorted = false;
+            }
+            if (n == elements.length) {
+                elements = Arrays.copyOf(elements, n * 2);
+            }
+            elements[n++] = a;
+        }
+
+        static <A extends Comparable<A>> Ascending<A> of(List<A> list) {
+            return list.foldLeft(new Ascending<>(), r -> a -> {
+                r.add(a);
+                return r;
+            });
+        }
+
+        static <A extends Comparable<A>> Ascending<A> of(Stream<A> stream) {
+            Ascending<A> result = new Ascending<>();
+            for (Stream<A> s = stream; !s.isEmpty(); ) {
+                Tuple<Result<A>, Stream<A>> t = s.headOption();
+                t._1.forEach(result::add);
+                s = t._2.drop(1);
+            }
+            return result;
+        }
+
+        // The distinct elements, ascending (the array may be longer than the number of elements, which is n()).
+        Object[] toArray() {
+            if (!sorted) {
+                Arrays.sort(elements, 0, n);
+                sorted = true;
+            }
+            int distinct = 0;
+            for (int i = 0; i < n; i++) {
+                if (distinct == 0 || compare(elements[i], elements[distinct - 1]) != 0) {
+                    elements[distinct++] = elements[i];
+                }
+            }
+            n = distinct;
+            return elements;
+        }
+
+        int n() {
+            return n;
+        }
+    }
+
+    // Bulk loading from sorted elements (e.g. a sorted snapshot): O(n) and perfectly balanced,
+    // whereas tree() inserts the elements one by one, which gives a totally unbalanced tree from sorted elements.
+    // Elements that are not ascending are sorted first (O(n log(n))). Duplicates are kept once.
+    public static <A extends Comparable<A>> Tree<A> treeFromSorted(List<A> list) {
+        return fromAscending(Tree.<A>empty(), Ascending.of(list));
+    }
+
+    // The array is only read here: passing a generic varargs array on makes -Xlint:varargs warn.
+    @SafeVarargs
+    public static <A extends Comparable<A>> Tree<A> treeFromSorted(A... as) {
+        Ascending<A> ascending = new Ascending<>();
+        for (A a : as) {
+            ascending.add(a);
+        }
+        return fromAscending(Tree.<A>empty(), ascending);
+    }
+
+    public static <A extends Comparable<A>> Tree<A> treeFromSorted(Stream<A> stream) {
+        return fromAscending(Tree.<A>empty(), Ascending.of(stream));
+    }
+
+    static <A extends Comparable<A>> Tree<A> fromAscending(Tree<A> empty, Ascending<A> ascending) {
+        Object[] as = ascending.toArray();
+        return empty.balanced(as, 0, ascending.n());
     }
 
     public static <A extends Comparable<A>> Tree<A> tree(List<A> list) {
@@ -407,7 +739,11 @@ public abstract class Tree<A extends Comparable<A>> {
 
     @SafeVarargs
     public static <A extends Comparable<A>> Tree<A> tree(A... as) {
-        return tree(List.list(as));
+        Tree<A> result = empty();
+        for (A a : as) {
+            result = result.insert(a);
+        }
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,117 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+// Cache of the results of a memoized asynchronous function (see Memoizer.memoizeAsync()).
+// The future is cached as soon as the function returns it, before it completes: the concurrent callers of a key
+// get the same future, and the function is called once.
+// A future which completes exceptionally is removed from the cache (the callers which got it see the failure),
+// so the next call calls the function again.
+// With CacheSpec.refreshAfterWrite, the first call after this duration calls the function again in the background,
+// and still returns the current future. The new future replaces it once completed successfully (if it fails, the
+// current one is kept and refreshed again on a later call). With a refresh duration shorter than expireAfterWrite,
+// the keys in use are refreshed before they expire, and their callers never wait for the function.
+// The other settings of the spec (size, expiry, soft values) apply to the futures, as in MemoCache.
+// Weak values are not supported: nothing else references the cached futures, so they would be reclaimed at once.
+public final class AsyncMemoCache<K, V> {
+
+    private final MemoCache<K, Entry<V>> cache;
+    private final long refreshAfterWriteNanos;
+    private final LongSupplier ticker;
+
+    AsyncMemoCache(CacheSpec spec, LongSupplier ticker) {
+        if (spec.references == CacheSpec.References.WEAK) {
+            throw new IllegalArgumentException("Weak values are not supported by asynchronous memoization: " + spec);
+        }
+        this.cache = new MemoCache<>(spec, ticker);
+        this.refreshAfterWriteNanos = spec.refreshAfterWriteNanos;
+        this.ticker = ticker;
+    }
+
+    public static <K, V> AsyncMemoCache<K, V> of(CacheSpec spec) {
+        return new AsyncMemoCache<>(spec, System::nanoTime);
+    }
+
+    public CompletableFuture<V> get(K key, Function<K, CompletableFuture<V>> f) {
+        Entry<V> entry = cache.get(key, k -> load(k, f));
+        if (entry.future.isCompletedExceptionally()) {
+            // Failed before being cached: the callback of load() found nothing to remove.
+            cache.remove(key, entry);
+        } else if (refreshAfterWriteNanos >= 0 && entry.needsRefresh(now(), refreshAfterWriteNanos)) {
+            refresh(key, entry, f);
+        }
+        return entry.future;
+    }
+
+    private Entry<V> load(K key, Function<K, CompletableFuture<V>> f) {
+        Entry<V> entry = new Entry<>(f.apply(key), now());
+        entry.future.whenComplete((v, e) -> {
+            if (e != null) {
+                cache.remove(key, entry);
+            }
+        });
+        return entry;
+    }
+
+    private void refresh(K key, Entry<V> entry, Function<K, CompletableFuture<V>> f) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return; // already refreshed by another caller
+        }
+        CompletableFuture<V> future;
+        try {
+            future = f.apply(key);
+        } catch (Throwable e) {
+            entry.refreshing.set(false); // any Throwable, so that a later call can refresh again
+            throw e;
+        }
+        future.whenComplete((v, e) -> {
+            if (e == null) {
+                cache.replace(key, entry, new Entry<>(future, now()));
+            } else {
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    // The ticker is only read if entries are refreshed.
+    private long now() {
+        return refreshAfterWriteNanos >= 0 ? ticker.getAsLong() : 0;
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    // A hit is a call which got a cached future, possibly not completed yet.
+    public MemoCache.CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> future;
+        private final long writeTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CompletableFuture<V> future, long writeTime) {
+            this.future = future;
+            this.writeTime = writeTime;
+        }
+
+        // Only a successfully completed future is refreshed.
+        private boolean needsRefresh(long now, long refreshAfterWriteNanos) {
+            return now - writeTime >= refreshAfterWriteNanos && future.isDone() && !future.isCompletedExceptionally();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fpinjava.chapter4;
+
+import java.time.Duration;
+
+// Configuration of a MemoCache. Immutable: each method returns a new CacheSpec.
+//    Memoizer.memoize(f, CacheSpec.maximumSize(10_000, Eviction.TINY_LFU).expireAfterWrite(Duration.ofMinutes(5)))
+// - maximumSize: beyond it, entries are evicted with LRU (least recently used)
+//   or TINY_LFU (W-TinyLFU: frequency based admission, which keeps the hot entries under a skewed distribution),
+// - expireAfterWrite: an entry is recomputed once it is older than the duration,
+// - refreshAfterWrite (asynchronous memoization only, see AsyncMemoCache): an entry older than the duration is
+//   recomputed in the background on its next use, while the current value is still returned,
+// - weakValues / softValues: values are only weakly or softly referenced, so the garbage collector may reclaim them
+//   (weak: as soon as they are not used elsewhere, soft: under memory pressure). A reclaimed value is recomputed.
+public final class CacheSpec {
+
+    public enum Eviction { LRU, TINY_LFU }
+
+    enum References { STRONG, WEAK, SOFT }
+
+    final long maximumSize; // -1 if unbounded
+    final Eviction eviction;
+    final long expireAfterWriteNanos; // -1 if entries don't expire
+    final long refreshAfterWriteNanos; // -1 if entries are not refreshed
+    final References references;
+
+    private CacheSpec(long maximumSize, Eviction eviction, long expireAfterWriteNanos, long refreshAfterWriteNanos,
+                      References references) {
+        this.maximumSize = maximumSize;
+        this.eviction = eviction;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.refreshAfterWriteNanos = refreshAfterWriteNanos;
+        this.references = references;
+    }
+
+    public static CacheSpec unbounded() {
+        return new CacheSpec(-1, Eviction.LRU, -1, -1, References.STRONG);
+    }
+
+    public static CacheSpec maximumSize(long maximumSize, Eviction eviction) {
+        return unbounded().withMaximumSize(maximumSize, eviction);
+    }
+
+    public CacheSpec withMaximumSize(long maximumSize, Eviction eviction) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        return new CacheSpec(maximumSize, eviction, expireAfterWriteNanos, refreshAfterWriteNanos, references);
+    }
+
+    public CacheSpec expireAfterWrite(Duration duration) {
+        return new CacheSpec(maximumSize, eviction, positive(duration), refreshAfterWriteNanos, references);
+    }
+
+    public CacheSpec refreshAfterWrite(Duration duration) {
+        return new CacheSpec(maximumSize, eviction, expireAfterWriteNanos, positive(duration), references);
+    }
+
+    public CacheSpec weakValues() {
+        return new CacheSpec(maximumSize, eviction, expireAfterWriteNanos, refreshAfterWriteNanos, References.WEAK);
+    }
+
+    public CacheSpec softValues() {
+        return new CacheSpec(maximumSize, eviction, expireAfterWriteNanos, refreshAfterWriteNanos, References.SOFT);
+    }
+
+    private static long positive(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        return duration.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheSpec(maximumSize=%s, eviction=%s, expireAfterWrite=%s, refreshAfterWrite=%s, values=%s)",
+                maximumSize < 0 ? "unbounded" : maximumSize, eviction,
+                expireAfterWriteNanos < 0 ? "never" : Duration.ofNanos(expireAfterWriteNanos),
+                refreshAfterWriteNanos < 0 ? "never" : Duration.ofNanos(refreshAfterWriteNanos), references);
+    }
+}
@@ -0,0 +1,56 @@
+package fpinjava.chapter4;
+
+import java.util.concurrent.CountDownLatch;
+
+// A computation of a memoized function in progress for one key (see Memoizer and MemoCache).
+// The thread which registered it computes the value, outside of any lock of the cache, so that the function may call
+// the memoized function again for other keys (recursion, mutual recursion). The other callers of the same key wait
+// for this single computation, and get its result or its exception (whatever the Throwable, checked exceptions included).
+// A call for the same key from the computing thread itself would wait forever: it throws an IllegalStateException.
+// (A cycle between threads, each computing a key needed by the other, is not detected.)
+final class InFlight<V> {
+
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private V value;
+    private Throwable failure;
+
+    // The result is stored in the cache (or the computation removed from it) before calling complete() or fail().
+    void complete(V value) {
+        this.value = value;
+        done.countDown();
+    }
+
+    void fail(Throwable failure) {
+        this.failure = failure;
+        done.countDown();
+    }
+
+    V await() {
+        if (owner == Thread.currentThread()) {
+            throw new IllegalStateException("Recursive evaluation of a memoized function for the same key");
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw InFlight.<RuntimeException>rethrow(failure);
+        }
+        return value;
+    }
+
+    // The failure is rethrown as is, even a checked exception thrown sneakily by the function.
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException rethrow(Throwable failure) throws E {
+        throw (E) failure;
+    }
+}
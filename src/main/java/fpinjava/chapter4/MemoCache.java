@@ -0,0 +1,552 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Cache of the results of a memoized function (see Memoizer.memoize(f, cache) and CacheSpec).
+// The entries are stored in a ConcurrentHashMap, so a hit is a lock-free get().
+// The eviction policy (access order queues, frequency sketch) and the write order (for expiry) are guarded by a lock,
+// taken on every insertion. On a hit, the access is only recorded if the lock is free: under contention the policy
+// misses a few accesses instead of making the readers wait (Caffeine makes the same trade-off with its read buffers).
+// Expired entries and reclaimed values are removed on the next insertion (or on cleanUp()) and count as evictions.
+// A null result is returned but not cached.
+// The function is called outside of any lock, so it may use the cache recursively (see InFlight). The concurrent
+// callers of a key being computed wait for this computation.
+// A miss is a call of the function: a caller finding the value just computed by another thread counts as a hit.
+public final class MemoCache<K, V> {
+
+    private final CacheSpec spec;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, InFlight<V>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Policy<K, V> policy; // null if unbounded
+    private final NodeList<K, V> writeOrder = new NodeList<>(); // oldest first, if entries expire
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    MemoCache(CacheSpec spec, LongSupplier ticker) {
+        this.spec = spec;
+        this.ticker = ticker;
+        this.policy = spec.maximumSize < 0
+                ? null
+                : spec.eviction == CacheSpec.Eviction.LRU
+                    ? new Lru<>(spec.maximumSize)
+                    : new TinyLfu<>(spec.maximumSize);
+    }
+
+    public static <K, V> MemoCache<K, V> of(CacheSpec spec) {
+        return new MemoCache<>(spec, System::nanoTime);
+    }
+
+    public V get(K key, Function<K, V> f) {
+        long now = now();
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            V v = value(node);
+            if (v != null && !expired(node, now)) {
+                hits.increment();
+                if (policy != null && lock.tryLock()) {
+                    try {
+                        policy.onAccess(node);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return v;
+            }
+        }
+        InFlight<V> inFlight = new InFlight<>();
+        InFlight<V> other = loading.putIfAbsent(key, inFlight);
+        if (other != null) {
+            V v = other.await();
+            hits.increment();
+            return v;
+        }
+        try {
+            return load(key, f, now, inFlight);
+        } finally {
+            loading.remove(key, inFlight);
+        }
+    }
+
+    // Called by the only thread computing key: no other thread inserts it in the map in the meantime.
+    // inFlight is completed or failed whatever is thrown, by f or while publishing the value (the key's hashCode()
+    // or equals(), the eviction policy), so that the callers waiting for key never wait forever.
+    private V load(K key, Function<K, V> f, long now, InFlight<V> inFlight) {
+        try {
+            Node<K, V> node = map.get(key);
+            V v = node == null ? null : value(node);
+            if (v != null && !expired(node, now)) { // computed by another thread since the first look up
+                hits.increment();
+                inFlight.complete(v);
+                return v;
+            }
+            misses.increment();
+            v = f.apply(key);
+            if (v != null) {
+                Node<K, V> created = new Node<>(key, v, now, spec.references, collected);
+                afterWrite(created, map.put(key, created), true, now);
+            }
+            inFlight.complete(v);
+            return v;
+        } catch (Throwable e) {
+            inFlight.fail(e);
+            throw e;
+        }
+    }
+
+    // Null if the value has been reclaimed.
+    @SuppressWarnings("unchecked")
+    private V value(Node<K, V> node) {
+        return spec.references == CacheSpec.References.STRONG ? (V) node.value : ((Reference<V>) node.value).get();
+    }
+
+    // The ticker is only read if entries expire.
+    private long now() {
+        return spec.expireAfterWriteNanos >= 0 ? ticker.getAsLong() : 0;
+    }
+
+    private boolean expired(Node<K, V> node, long now) {
+        return spec.expireAfterWriteNanos >= 0 && now - node.writeTime >= spec.expireAfterWriteNanos;
+    }
+
+    // replaced is an evicted node (expired or reclaimed), unless it is replaced by replace().
+    private void afterWrite(Node<K, V> created, Node<K, V> replaced, boolean evicted, long now) {
+        lock.lock();
+        try {
+            if (replaced != null) {
+                if (evicted) {
+                    evictions.increment();
+                }
+                removed(replaced);
+            }
+            if (created != null && !created.removed) {
+                if (spec.expireAfterWriteNanos >= 0) {
+                    writeOrder.addLast(created, true);
+                }
+                if (policy != null) {
+                    for (Node<K, V> victim : policy.onInsert(created)) {
+                        evict(victim);
+                    }
+                }
+            }
+            maintenance(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes the expired entries and the entries whose value has been reclaimed. Called with the lock held.
+    private void maintenance(long now) {
+        for (Node<K, V> node = writeOrder.first; node != null && expired(node, now); node = writeOrder.first) {
+            evict(node);
+        }
+        for (Reference<? extends V> ref = collected.poll(); ref != null; ref = collected.poll()) {
+            @SuppressWarnings("unchecked")
+            Node<K, V> node = ((ValueReference<K, V>) ref).node();
+            evict(node);
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        if (map.remove(node.key, node)) {
+            evictions.increment();
+        }
+        removed(node);
+    }
+
+    private void removed(Node<K, V> node) {
+        node.removed = true;
+        if (policy != null) {
+            policy.onRemove(node);
+        }
+        writeOrder.remove(node, true);
+    }
+
+    // Replaces the value of key by newValue, if it is still oldValue (see AsyncMemoCache).
+    boolean replace(K key, V oldValue, V newValue) {
+        long now = now();
+        Node<K, V> created = new Node<>(key, newValue, now, spec.references, collected);
+        List<Node<K, V>> replaced = new ArrayList<>(1);
+        map.computeIfPresent(key, (k, node) -> {
+            if (value(node) != oldValue) {
+                return node;
+            }
+            replaced.add(node);
+            return created;
+        });
+        if (replaced.isEmpty()) {
+            return false;
+        }
+        afterWrite(created, replaced.get(0), false, now);
+        return true;
+    }
+
+    // Removes key if its value is still value (see AsyncMemoCache).
+    boolean remove(K key, V value) {
+        List<Node<K, V>> removed = new ArrayList<>(1);
+        map.computeIfPresent(key, (k, node) -> {
+            if (value(node) != value) {
+                return node;
+            }
+            removed.add(node);
+            return null;
+        });
+        if (removed.isEmpty()) {
+            return false;
+        }
+        lock.lock();
+        try {
+            removed(removed.get(0));
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    public void invalidate(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null) {
+            lock.lock();
+            try {
+                removed(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (K key : map.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    public void cleanUp() {
+        lock.lock();
+        try {
+            maintenance(now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        return map.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    public static final class CacheStats {
+
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+        private CacheStats(long hits, long misses, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public double hitRate() {
+            return hits + misses == 0 ? 1.0 : (double) hits / (hits + misses);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats(hits=%d, misses=%d, evictions=%d)", hits, misses, evictions);
+        }
+    }
+
+    // An entry, linked in one queue of the policy (access links) and in the write order (write links).
+    // All mutable fields are guarded by the lock of the cache.
+    private static final class Node<K, V> {
+        private final K key;
+        private final Object value; // V, or a ValueReference to V
+        private final long writeTime;
+        private NodeList<K, V> queue;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private boolean inWriteOrder;
+        private Node<K, V> writePrev;
+        private Node<K, V> writeNext;
+        private boolean removed;
+
+        private Node(K key, V value, long writeTime, CacheSpec.References references, ReferenceQueue<V> queue) {
+            this.key = key;
+            this.writeTime = writeTime;
+            this.value = references == CacheSpec.References.STRONG
+                    ? value
+                    : references == CacheSpec.References.WEAK
+                        ? new WeakValueReference<>(value, queue, this)
+                        : new SoftValueReference<>(value, queue, this);
+        }
+
+    }
+
+    private interface ValueReference<K, V> {
+        Node<K, V> node();
+    }
+
+    private static final class WeakValueReference<K, V> extends WeakReference<V> implements ValueReference<K, V> {
+        private final Node<K, V> node;
+
+        private WeakValueReference(V value, ReferenceQueue<V> queue, Node<K, V> node) {
+            super(value, queue);
+            this.node = node;
+        }
+
+        public Node<K, V> node() {
+            return node;
+        }
+    }
+
+    private static final class SoftValueReference<K, V> extends SoftReference<V> implements ValueReference<K, V> {
+        private final Node<K, V> node;
+
+        private SoftValueReference(V value, ReferenceQueue<V> queue, Node<K, V> node) {
+            super(value, queue);
+            this.node = node;
+        }
+
+        public Node<K, V> node() {
+            return node;
+        }
+    }
+
+    // Doubly linked list of nodes, least recent first, through the access links (or the write links).
+    private static final class NodeList<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private long size;
+
+        private void addLast(Node<K, V> node, boolean write) {
+            if (write) {
+                node.writePrev = last;
+                node.inWriteOrder = true;
+                if (last == null) {
+                    first = node;
+                } else {
+                    last.writeNext = node;
+                }
+            } else {
+                node.prev = last;
+                node.queue = this;
+                if (last == null) {
+                    first = node;
+                } else {
+                    last.next = node;
+                }
+            }
+            last = node;
+            size++;
+        }
+
+        private void remove(Node<K, V> node, boolean write) {
+            if (write ? !node.inWriteOrder : node.queue != this) {
+                return;
+            }
+            Node<K, V> prev = write ? node.writePrev : node.prev;
+            Node<K, V> next = write ? node.writeNext : node.next;
+            if (prev == null) {
+                first = next;
+            } else if (write) {
+                prev.writeNext = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                last = prev;
+            } else if (write) {
+                next.writePrev = prev;
+            } else {
+                next.prev = prev;
+            }
+            if (write) {
+                node.writePrev = node.writeNext = null;
+                node.inWriteOrder = false;
+            } else {
+                node.prev = node.next = null;
+                node.queue = null;
+            }
+            size--;
+        }
+
+        private void moveToLast(Node<K, V> node) {
+            remove(node, false);
+            addLast(node, false);
+        }
+    }
+
+    // Eviction policy. All methods are called with the lock held.
+    private interface Policy<K, V> {
+        void onAccess(Node<K, V> node);
+        // Adds node and returns the nodes to evict.
+        Iterable<Node<K, V>> onInsert(Node<K, V> node);
+        void onRemove(Node<K, V> node);
+    }
+
+    private static final class Lru<K, V> implements Policy<K, V> {
+        private final long maximumSize;
+        private final NodeList<K, V> queue = new NodeList<>();
+
+        private Lru(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public void onAccess(Node<K, V> node) {
+            if (node.queue == queue) {
+                queue.moveToLast(node);
+            }
+        }
+
+        public Iterable<Node<K, V>> onInsert(Node<K, V> node) {
+            queue.addLast(node, false);
+            List<Node<K, V>> victims = new ArrayList<>(1);
+            while (queue.size > maximumSize) {
+                Node<K, V> victim = queue.first;
+                queue.remove(victim, false);
+                victims.add(victim);
+            }
+            return victims;
+        }
+
+        public void onRemove(Node<K, V> node) {
+            queue.remove(node, false);
+        }
+    }
+
+    // W-TinyLFU (Einziger, Friedman, Manes: TinyLFU: A Highly Efficient Cache Admission Policy).
+    // New entries go through a small LRU window (1% of the capacity). An entry leaving the window is only admitted
+    // into the main space if it has been used more often than the entry that would be evicted for it,
+    // according to a frequency sketch of the recent accesses. The main space is a segmented LRU:
+    // entries accessed again are promoted from probation (20%) to protected (80%).
+    // Under a skewed distribution, one-hit wonders no longer evict the hot entries, as they do with LRU.
+    private static final class TinyLfu<K, V> implements Policy<K, V> {
+        private final long maximumSize;
+        private final long windowMaximum;
+        private final long protectedMaximum;
+        private final NodeList<K, V> window = new NodeList<>();
+        private final NodeList<K, V> probation = new NodeList<>();
+        private final NodeList<K, V> protectedQueue = new NodeList<>();
+        private final FrequencySketch sketch;
+
+        private TinyLfu(long maximumSize) {
+            this.maximumSize = maximumSize;
+            this.windowMaximum = Math.max(1, maximumSize / 100);
+            this.protectedMaximum = (maximumSize - windowMaximum) * 8 / 10;
+            this.sketch = new FrequencySketch(maximumSize);
+        }
+
+        public void onAccess(Node<K, V> node) {
+            sketch.increment(node.key);
+            if (node.queue == window || node.queue == protectedQueue) {
+                node.queue.moveToLast(node);
+            } else if (node.queue == probation) {
+                probation.remove(node, false);
+                protectedQueue.addLast(node, false);
+                if (protectedQueue.size > protectedMaximum) {
+                    Node<K, V> demoted = protectedQueue.first;
+                    protectedQueue.remove(demoted, false);
+                    probation.addLast(demoted, false);
+                }
+            }
+        }
+
+        public Iterable<Node<K, V>> onInsert(Node<K, V> node) {
+            sketch.increment(node.key);
+            window.addLast(node, false);
+            List<Node<K, V>> victims = new ArrayList<>(1);
+            Node<K, V> candidate = null;
+            if (window.size > windowMaximum) {
+                candidate = window.first;
+                window.remove(candidate, false);
+                probation.addLast(candidate, false);
+            }
+            while (window.size + probation.size + protectedQueue.size > maximumSize) {
+                Node<K, V> victim = probation.first != null ? probation.first
+                        : protectedQueue.first != null ? protectedQueue.first : window.first;
+                Node<K, V> evicted = candidate != null && victim != candidate
+                        && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)
+                        ? candidate
+                        : victim;
+                if (evicted == candidate) {
+                    candidate = null;
+                }
+                evicted.queue.remove(evicted, false);
+                victims.add(evicted);
+            }
+            return victims;
+        }
+
+        public void onRemove(Node<K, V> node) {
+            if (node.queue != null) {
+                node.queue.remove(node, false);
+            }
+        }
+    }
+
+    // Count-Min sketch of the access frequencies, with 4 counters per key saturating at 15.
+    // There are 16 counters per entry of the cache, so that the one-hit wonders seldom collide with the hot entries.
+    // All counters are halved after 10 accesses per entry, so that the frequencies reflect the recent accesses.
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0xab4f1d91, 0x5b8c42e7, 0x2fe4b9a3};
+
+        private final byte[] table;
+        private final int mask;
+        private final long resetThreshold;
+        private long additions;
+
+        private FrequencySketch(long maximumSize) {
+            int entries = (int) Math.min(Math.max(maximumSize, 16), 1 << 22);
+            int size = Integer.highestOneBit(entries - 1) << 5;
+            this.table = new byte[size];
+            this.mask = size - 1;
+            this.resetThreshold = 10L * entries;
+        }
+
+        private int index(Object key, int i) {
+            int h = key.hashCode() * SEEDS[i];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void increment(Object key) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(key, i);
+                if (table[index] < 15) {
+                    table[index]++;
+                }
+            }
+            if (++additions >= resetThreshold) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(Object key) {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, table[index(key, i)]);
+            }
+            return frequency;
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package fpinjava.chapter4;
 
+import fpinjava.chapter1.Tuple;
 import fpinjava.chapter2.Function;
 
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
+// The function is not called inside computeIfAbsent(): a recursive function would update the map recursively
+// (IllegalStateException: Recursive update). While a value is computed, the map holds an InFlight computation,
+// on which the concurrent callers of the same key wait. The function may call the memoized function for other keys.
 public class Memoizer<T, U> {
-    private Map<T, U> map = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<T, Object> map = new ConcurrentHashMap<>(); // U, or InFlight<U> while computed
 
     private Memoizer() { }
 
@@ -14,7 +18,105 @@ public class Memoizer<T, U> {
         return new Memoizer<T, U>().doMemoize(f);
     }
 
+    // Memoization with a bounded cache, expiry, weak or soft values (see CacheSpec).
+    public static <T, U> Function<T, U> memoize(Function<T, U> f, CacheSpec spec) {
+        return memoize(f, MemoCache.of(spec));
+    }
+
+    // Memoization in a cache created by the caller, e.g. to read its statistics.
+    public static <T, U> Function<T, U> memoize(Function<T, U> f, MemoCache<T, U> cache) {
+        return t -> cache.get(t, f);
+    }
+
+    // Asynchronous functions: the future is memoized as soon as it is returned, so concurrent calls share it,
+    // and it is forgotten if it fails (see AsyncMemoCache, and CacheSpec.refreshAfterWrite).
+    public static <T, U> Function<T, CompletableFuture<U>> memoizeAsync(Function<T, CompletableFuture<U>> f) {
+        return memoizeAsync(f, CacheSpec.unbounded());
+    }
+
+    public static <T, U> Function<T, CompletableFuture<U>> memoizeAsync(Function<T, CompletableFuture<U>> f, CacheSpec spec) {
+        return memoizeAsync(f, AsyncMemoCache.of(spec));
+    }
+
+    public static <T, U> Function<T, CompletableFuture<U>> memoizeAsync(Function<T, CompletableFuture<U>> f, AsyncMemoCache<T, U> cache) {
+        return t -> cache.get(t, f);
+    }
+
+    // Curried functions of 2, 3 and 4 arguments. Memoizing each layer with memoize() would create one cache per
+    // partial application. Here, a single cache is keyed on all the arguments (a Tuple, a Tuple3, or a Tuple of Tuples),
+    // and f is only applied to all its arguments once per key.
+    public static <A, B, R> Function<A, Function<B, R>> memoize2(Function<A, Function<B, R>> f) {
+        return curry2(memoize(t -> f.apply(t._1).apply(t._2)));
+    }
+
+    public static <A, B, R> Function<A, Function<B, R>> memoize2(Function<A, Function<B, R>> f, CacheSpec spec) {
+        return curry2(memoize(t -> f.apply(t._1).apply(t._2), spec));
+    }
+
+    public static <A, B, C, R> Function<A, Function<B, Function<C, R>>> memoize3(Function<A, Function<B, Function<C, R>>> f) {
+        return curry3(memoize(t -> f.apply(t._1).apply(t._2).apply(t._3)));
+    }
+
+    public static <A, B, C, R> Function<A, Function<B, Function<C, R>>> memoize3(Function<A, Function<B, Function<C, R>>> f, CacheSpec spec) {
+        return curry3(memoize(t -> f.apply(t._1).apply(t._2).apply(t._3), spec));
+    }
+
+    public static <A, B, C, D, R> Function<A, Function<B, Function<C, Function<D, R>>>> memoize4(Function<A, Function<B, Function<C, Function<D, R>>>> f) {
+        return curry4(memoize(t -> f.apply(t._1._1).apply(t._1._2).apply(t._2._1).apply(t._2._2)));
+    }
+
+    public static <A, B, C, D, R> Function<A, Function<B, Function<C, Function<D, R>>>> memoize4(Function<A, Function<B, Function<C, Function<D, R>>>> f, CacheSpec spec) {
+        return curry4(memoize(t -> f.apply(t._1._1).apply(t._1._2).apply(t._2._1).apply(t._2._2), spec));
+    }
+
+    private static <A, B, R> Function<A, Function<B, R>> curry2(Function<Tuple<A, B>, R> f) {
+        return a -> b -> f.apply(new Tuple<>(a, b));
+    }
+
+    private static <A, B, C, R> Function<A, Function<B, Function<C, R>>> curry3(Function<Tuple3<A, B, C>, R> f) {
+        return a -> b -> c -> f.apply(new Tuple3<>(a, b, c));
+    }
+
+    private static <A, B, C, D, R> Function<A, Function<B, Function<C, Function<D, R>>>> curry4(Function<Tuple<Tuple<A, B>, Tuple<C, D>>, R> f) {
+        return a -> b -> c -> d -> f.apply(new Tuple<>(new Tuple<>(a, b), new Tuple<>(c, d)));
+    }
+
     private Function<T, U> doMemoize(Function<T, U> f) {
-        return t -> map.computeIfAbsent(t, t1 -> f.apply(t1));
+        return t -> get(t, f);
+    }
+
+    @SuppressWarnings("unchecked")
+    private U get(T t, Function<T, U> f) {
+        Object o = map.get(t);
+        if (o == null) {
+            InFlight<U> inFlight = new InFlight<>();
+            o = map.putIfAbsent(t, inFlight);
+            if (o == null) {
+                return compute(t, f, inFlight);
+            }
+        }
+        return o instanceof InFlight ? ((InFlight<U>) o).await() : (U) o;
+    }
+
+    // A null result or an exception is not memoized.
+    // inFlight is failed whatever is thrown, by f or while storing the result (the key's hashCode() or equals()).
+    private U compute(T t, Function<T, U> f, InFlight<U> inFlight) {
+        try {
+            U u = f.apply(t);
+            if (u == null) {
+                map.remove(t, inFlight);
+            } else {
+                map.replace(t, inFlight, u);
+            }
+            inFlight.complete(u);
+            return u;
+        } catch (Throwable e) {
+            try {
+                map.remove(t, inFlight);
+            } finally {
+                inFlight.fail(e);
+            }
+            throw e;
+        }
     }
 }
\ No newline at end of file
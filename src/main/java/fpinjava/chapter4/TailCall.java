@@ -1,15 +1,30 @@
 package fpinjava.chapter4;
 
+import fpinjava.chapter2.Function;
+
 import java.util.function.Supplier;
 
-public abstract class TailCall<T> {
+// ret() ends a recursion and sus() suspends a step. Suspend is a functional interface, so the lambda passed to sus()
+// is the suspended step itself; susFromSupplier() adapts a Supplier held in a variable.
+// eval() resumes the steps in a loop, in constant stack. map() and flatMap() chain a continuation as a FlatMap,
+// which resume() re-associates (see FlatMap), so that non-tail recursion can be trampolined as well
+// (see the comment at the end of this file).
+public interface TailCall<T> {
+
+    T eval();
+    TailCall<T> resume();
+    boolean isSuspend();
+
+    default <U> TailCall<U> flatMap(Function<T, TailCall<U>> f) {
+        return new FlatMap<>(this, f);
+    }
 
-    public abstract T eval();
-    public abstract TailCall<T> resume();
-    public abstract boolean isSuspend();
+    default <U> TailCall<U> map(Function<T, U> f) {
+        return flatMap(t -> ret(f.apply(t)));
+    }
 
-    private static class Return<T> extends TailCall<T> {
-        private T value;
+    final class Return<T> implements TailCall<T> {
+        private final T value;
 
         private Return(T value) {
             this.value = value;
@@ -25,29 +40,58 @@ public abstract class TailCall<T> {
         }
     }
 
-    private static class Suspend<T> extends TailCall<T> {
-        private Supplier<TailCall<T>> supplier;
+    @FunctionalInterface
+    interface Suspend<T> extends TailCall<T> {
+        TailCall<T> resume();
 
-        private Suspend(Supplier<TailCall<T>> supplier) {
-            this.supplier = supplier;
+        default T eval() {
+            TailCall<T> tc = resume();
+            while(tc.isSuspend()) {
+                tc = tc.resume();
+            }
+            return tc.eval();
         }
-        public T eval() {
-            TailCall<T> tc = supplier.get();
+        default boolean isSuspend() {
+            return true;
+        }
+    }
+
+    // resume() never evaluates sub recursively: a nested FlatMap is re-associated to the right,
+    // FlatMap(FlatMap(tc, g), f) becoming FlatMap(tc, x -> FlatMap(g(x), f)), so that the innermost step comes first.
+    // So eval() runs in constant stack whatever the depth of the chain of continuations.
+    final class FlatMap<T, U> implements TailCall<U> {
+        private final TailCall<T> sub;
+        private final Function<T, TailCall<U>> f;
+
+        private FlatMap(TailCall<T> sub, Function<T, TailCall<U>> f) {
+            this.sub = sub;
+            this.f = f;
+        }
+        public U eval() {
+            TailCall<U> tc = this;
             while(tc.isSuspend()) {
                 tc = tc.resume();
             }
             return tc.eval();
         }
-        public TailCall<T> resume() {
-            return supplier.get();
+        @SuppressWarnings("unchecked")
+        public TailCall<U> resume() {
+            if (sub instanceof FlatMap) {
+                FlatMap<Object, T> fm = (FlatMap<Object, T>) sub;
+                return new FlatMap<>(fm.sub, x -> fm.f.apply(x).flatMap(f));
+            }
+            return sub.isSuspend()
+                    ? new FlatMap<>(sub.resume(), f)
+                    : f.apply(sub.eval());
         }
         public boolean isSuspend() {
             return true;
         }
     }
 
-    public static <T> Return<T> ret(T value) { return new Return<>(value); }
-    public static <T> Suspend<T> sus(Supplier<TailCall<T>> supplier) { return new Suspend<>(supplier); }
+    static <T> Return<T> ret(T value) { return new Return<>(value); }
+    static <T> Suspend<T> sus(Suspend<T> suspend) { return suspend; }
+    static <T> Suspend<T> susFromSupplier(Supplier<TailCall<T>> supplier) { return supplier::get; }
 }
 
 // Although it might appear that we can use this TailCall API for non-tail-recursive functions to make them stack-safe.
@@ -87,6 +131,13 @@ public abstract class TailCall<T> {
 //                ? ret(BigInteger.ONE)
 //                : sus(() -> ret(fiboStackSafe_(n - 1).eval().add(fiboStackSafe_(n - 2).eval())));
 //    }
-// If you see the implementation of Suspend.eval(), you see that it requires a Supplier which can be unfolded in one-direction.
+// If you see the implementation of Suspend.eval(), you see that it requires a Suspend which can be unfolded in one-direction.
 // When we call tc.resume(), we assign it to tc again. So it is important that tc.resume() returns Suspend object or Return with value.
-// If Return doesn't have value but recursive call then we are back to stack-unsafe functions.
\ No newline at end of file
+// If Return doesn't have value but recursive call then we are back to stack-unsafe functions.
+// With flatMap(), the recursive call is not evaluated but chained with the rest of the computation:
+//    public static <T, U> TailCall<U> foldRightStackSafe_(List<T> list, U identity, Function<T, Function<U, U>> f) {
+//        return list.isEmpty()
+//                ? ret(identity)
+//                : sus(() -> foldRightStackSafe_(list.tail(), identity, f)).map(u -> f.apply(list.head()).apply(u));
+//    }
+// and fibo(n - 1).flatMap(a -> fibo(n - 2).map(b -> a.add(b))). See TailCallTest.
\ No newline at end of file
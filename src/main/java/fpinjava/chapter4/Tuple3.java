@@ -9,27 +9,24 @@ public class Tuple3<T, U, V> {
     public final V _3;
 
     public Tuple3(T t, U u, V v) {
-        _1 = Objects.requireNonNull(t);
-        _2 = Objects.requireNonNull(u);
-        _3 = Objects.requireNonNull(v);
+        _1 = t;
+        _2 = u;
+        _3 = v;
     }
+
+    // Compared by value, null-safe like chapter1.Tuple, so that memoize3() accepts null arguments as memoize2() does.
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Tuple3)) return false;
         else {
-            Tuple3 that = (Tuple3) o;
-            return _1.equals(that._1) && _2.equals(that._2)
-                    && _3.equals(that._3);
+            Tuple3<?, ?, ?> that = (Tuple3<?, ?, ?>) o;
+            return Objects.equals(_1, that._1) && Objects.equals(_2, that._2)
+                    && Objects.equals(_3, that._3);
         }
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + _1.hashCode();
-        result = prime * result + _2.hashCode();
-        result = prime * result + _3.hashCode();
-        return result;
+        return Objects.hash(_1, _2, _3);
     }
 }
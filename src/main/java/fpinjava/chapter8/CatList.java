@@ -0,0 +1,173 @@
+package fpinjava.chapter8;
+
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter2.Function;
+import fpinjava.chapter7.Result;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static fpinjava.chapter7.Result.success;
+
+// Catenable list (Okasaki, Purely Functional Data Structures, 10.2.1): a tree whose nodes hold a non-empty
+// prefix (a List) and a queue of sublists, the elements being the prefix, then those of the sublists in order.
+// The queue is only consumed as a whole (by uncons or a traversal), so it is a List of the sublists, last first.
+// concat adds the second list at the end of the queue of the first one: O(1), instead of reversing and rebuilding
+// the first list as List.concat() does. cons adds to the prefix, fromList wraps a List (O(1) both),
+// snoc is a concat with a single element.
+// uncons takes the head of the prefix; once the prefix is exhausted, the sublists of the queue are linked together,
+// each to the next. As this is done eagerly (Okasaki uses a lazy linkAll), cons, snoc, concat and uncons
+// are O(1) amortized when each version of the list is only used once, as in List.flatMap().
+// foldLeft and toList traverse the tree with an explicit stack: they are stack-safe and allocate no node.
+public abstract class CatList<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final CatList EMPTY = new Empty();
+
+    private CatList() {}
+
+    public abstract boolean isEmpty();
+
+    public abstract int length();
+
+    public abstract CatList<T> concat(CatList<T> list);
+
+    public abstract CatList<T> cons(T t);
+
+    public abstract Result<Tuple<T, CatList<T>>> uncons();
+
+    @SuppressWarnings("unchecked")
+    public static <T> CatList<T> empty() {
+        return EMPTY;
+    }
+
+    public static <T> CatList<T> fromList(List<T> list) {
+        return list.isEmpty() ? empty() : new Node<>(list, List.list(), list.length());
+    }
+
+    public CatList<T> snoc(T t) {
+        return concat(fromList(List.list(t)));
+    }
+
+    public Result<T> headOption() {
+        return uncons().map(t -> t._1);
+    }
+
+    public <U> U foldLeft(U identity, Function<U, Function<T, U>> f) {
+        U acc = identity;
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        if (!isEmpty()) {
+            stack.push((Node<T>) this);
+        }
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            for (List<T> l = node.prefix; !l.isEmpty(); l = l.tail()) {
+                acc = f.apply(acc).apply(l.head());
+            }
+            // The sublists, pushed last first, so that they are popped in order
+            for (List<Node<T>> l = node.sublists; !l.isEmpty(); l = l.tail()) {
+                stack.push(l.head());
+            }
+        }
+        return acc;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> toList() {
+        Object[] ts = new Object[length()];
+        foldLeft(0, i -> t -> {
+            ts[i] = t;
+            return i + 1;
+        });
+        return List.list((T[]) ts);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    private static final class Empty<T> extends CatList<T> {
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
+        @Override
+        public CatList<T> concat(CatList<T> list) {
+            return list;
+        }
+
+        @Override
+        public CatList<T> cons(T t) {
+            return fromList(List.list(t));
+        }
+
+        @Override
+        public Result<Tuple<T, CatList<T>>> uncons() {
+            return Result.empty();
+        }
+    }
+
+    private static final class Node<T> extends CatList<T> {
+        private final List<T> prefix; // never empty
+        private final List<Node<T>> sublists; // last first
+        private final int length;
+
+        private Node(List<T> prefix, List<Node<T>> sublists, int length) {
+            this.prefix = prefix;
+            this.sublists = sublists;
+            this.length = length;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public CatList<T> concat(CatList<T> list) {
+            return list.isEmpty() ? this : link((Node<T>) list);
+        }
+
+        private Node<T> link(Node<T> node) {
+            return new Node<>(prefix, sublists.cons(node), length + node.length);
+        }
+
+        @Override
+        public CatList<T> cons(T t) {
+            return new Node<>(prefix.cons(t), sublists, length + 1);
+        }
+
+        @Override
+        public Result<Tuple<T, CatList<T>>> uncons() {
+            List<T> rest = prefix.tail();
+            return success(new Tuple<>(prefix.head(), rest.isEmpty()
+                    ? linkAll(sublists)
+                    : new Node<>(rest, sublists, length - 1)));
+        }
+
+        // q1 linked to (q2 linked to (... qn)), built from qn, without recursion.
+        private static <T> CatList<T> linkAll(List<Node<T>> sublists) {
+            if (sublists.isEmpty()) {
+                return empty();
+            }
+            Node<T> acc = sublists.head();
+            for (List<Node<T>> l = sublists.tail(); !l.isEmpty(); l = l.tail()) {
+                acc = l.head().link(acc);
+            }
+            return acc;
+        }
+    }
+}
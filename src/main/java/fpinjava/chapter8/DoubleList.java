@@ -0,0 +1,186 @@
+package fpinjava.chapter8;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+// List specialized for double.
+// Same structure as List (Nil and Cons with the length cached in Cons), but the head is a primitive double
+// and all the functions are primitive functional interfaces, so that numeric code never boxes an element.
+// Loops are imperative: a TailCall<Double> would box the accumulator at every step.
+// See also IntList and LongList.
+public abstract class DoubleList {
+
+    protected abstract double head();
+    protected abstract DoubleList tail();
+    public abstract boolean isEmpty();
+    public abstract int length();
+
+    private static final DoubleList NIL = new Nil();
+
+    private DoubleList() {}
+
+    public DoubleList cons(double i) {
+        return new Cons(i, this);
+    }
+
+    private static class Nil extends DoubleList {
+
+        private Nil() {}
+
+        @Override
+        protected double head() {
+            throw new IllegalStateException("head() called on Nil");
+        }
+
+        @Override
+        protected DoubleList tail() {
+            throw new IllegalStateException("tail() called on Nil");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+    }
+
+    private static class Cons extends DoubleList {
+
+        private final double head;
+        private final DoubleList tail;
+        private final int length;
+
+        private Cons(double head, DoubleList tail) {
+            this.head = head;
+            this.tail = tail;
+            this.length = tail.length() + 1;
+        }
+
+        @Override
+        protected double head() {
+            return head;
+        }
+
+        @Override
+        protected DoubleList tail() {
+            return tail;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+
+    public static DoubleList list() {
+        return NIL;
+    }
+
+    public static DoubleList list(double... doubles) {
+        return list(doubles, doubles.length);
+    }
+
+    // List of the first n elements of doubles.
+    private static DoubleList list(double[] doubles, int n) {
+        DoubleList list = list();
+        for (int i = n - 1; i >= 0; i--) {
+            list = new Cons(doubles[i], list);
+        }
+        return list;
+    }
+
+    // Primitive counterpart of List.unfold(): seed, f(seed), f(f(seed)), ... as long as p holds.
+    public static DoubleList unfold(double seed, DoubleUnaryOperator f, DoublePredicate p) {
+        double[] doubles = new double[16];
+        int n = 0;
+        for (double i = seed; p.test(i); i = f.applyAsDouble(i)) {
+            if (n == doubles.length) {
+                doubles = Arrays.copyOf(doubles, n * 2);
+            }
+            doubles[n++] = i;
+        }
+        return list(doubles, n);
+    }
+
+    public double foldLeft(double identity, DoubleBinaryOperator f) {
+        double acc = identity;
+        for (DoubleList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = f.applyAsDouble(acc, list.head());
+        }
+        return acc;
+    }
+
+    public double sum() {
+        return foldLeft(0.0, Double::sum);
+    }
+
+    public double product() {
+        return foldLeft(1.0, (a, b) -> a * b);
+    }
+
+    public DoubleList map(DoubleUnaryOperator f) {
+        double[] doubles = toArray();
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = f.applyAsDouble(doubles[i]);
+        }
+        return list(doubles, doubles.length);
+    }
+
+    public DoubleList filter(DoublePredicate p) {
+        double[] doubles = toArray();
+        int n = 0;
+        for (double i : doubles) {
+            if (p.test(i)) {
+                doubles[n++] = i;
+            }
+        }
+        return list(doubles, n);
+    }
+
+    public DoubleList reverse() {
+        DoubleList acc = list();
+        for (DoubleList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = new Cons(list.head(), acc);
+        }
+        return acc;
+    }
+
+    public double[] toArray() {
+        double[] doubles = new double[length()];
+        int n = 0;
+        for (DoubleList list = this; !list.isEmpty(); list = list.tail()) {
+            doubles[n++] = list.head();
+        }
+        return doubles;
+    }
+
+    // Boxes every element. Only meant for interoperability with List.
+    public List<Double> toList() {
+        double[] doubles = toArray();
+        List<Double> list = List.list();
+        for (int i = doubles.length - 1; i >= 0; i--) {
+            list = list.cons(doubles[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[ ");
+        for (DoubleList list = this; !list.isEmpty(); list = list.tail()) {
+            sb.append(list.head()).append(", ");
+        }
+        return sb.append("NIL ]").toString();
+    }
+}
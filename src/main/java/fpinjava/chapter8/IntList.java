@@ -0,0 +1,201 @@
+package fpinjava.chapter8;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+// List specialized for int.
+// Same structure as List (Nil and Cons with the length cached in Cons), but the head is a primitive int
+// and all the functions are primitive functional interfaces, so that numeric code never boxes an element.
+// Loops are imperative: a TailCall<Integer> would box the accumulator at every step.
+// See also LongList and DoubleList.
+public abstract class IntList {
+
+    protected abstract int head();
+    protected abstract IntList tail();
+    public abstract boolean isEmpty();
+    public abstract int length();
+
+    private static final IntList NIL = new Nil();
+
+    private IntList() {}
+
+    public IntList cons(int i) {
+        return new Cons(i, this);
+    }
+
+    private static class Nil extends IntList {
+
+        private Nil() {}
+
+        @Override
+        protected int head() {
+            throw new IllegalStateException("head() called on Nil");
+        }
+
+        @Override
+        protected IntList tail() {
+            throw new IllegalStateException("tail() called on Nil");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+    }
+
+    private static class Cons extends IntList {
+
+        private final int head;
+        private final IntList tail;
+        private final int length;
+
+        private Cons(int head, IntList tail) {
+            this.head = head;
+            this.tail = tail;
+            this.length = tail.length() + 1;
+        }
+
+        @Override
+        protected int head() {
+            return head;
+        }
+
+        @Override
+        protected IntList tail() {
+            return tail;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+
+    public static IntList list() {
+        return NIL;
+    }
+
+    public static IntList list(int... ints) {
+        return list(ints, ints.length);
+    }
+
+    // List of the first n elements of ints.
+    private static IntList list(int[] ints, int n) {
+        IntList list = list();
+        for (int i = n - 1; i >= 0; i--) {
+            list = new Cons(ints[i], list);
+        }
+        return list;
+    }
+
+    // Primitive counterpart of List.range()
+    // start is checked before computing end - 1, and the loop stops on start, so that neither can overflow.
+    public static IntList range(int start, int end) {
+        IntList list = list();
+        if (start >= end) {
+            return list;
+        }
+        for (int i = end - 1; ; i--) {
+            list = new Cons(i, list);
+            if (i == start) {
+                return list;
+            }
+        }
+    }
+
+    // Primitive counterpart of List.unfold(): seed, f(seed), f(f(seed)), ... as long as p holds.
+    public static IntList unfold(int seed, IntUnaryOperator f, IntPredicate p) {
+        int[] ints = new int[16];
+        int n = 0;
+        for (int i = seed; p.test(i); i = f.applyAsInt(i)) {
+            if (n == ints.length) {
+                ints = Arrays.copyOf(ints, n * 2);
+            }
+            ints[n++] = i;
+        }
+        return list(ints, n);
+    }
+
+    public int foldLeft(int identity, IntBinaryOperator f) {
+        int acc = identity;
+        for (IntList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = f.applyAsInt(acc, list.head());
+        }
+        return acc;
+    }
+
+    public int sum() {
+        return foldLeft(0, Integer::sum);
+    }
+
+    public int product() {
+        return foldLeft(1, (a, b) -> a * b);
+    }
+
+    public IntList map(IntUnaryOperator f) {
+        int[] ints = toArray();
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = f.applyAsInt(ints[i]);
+        }
+        return list(ints, ints.length);
+    }
+
+    public IntList filter(IntPredicate p) {
+        int[] ints = toArray();
+        int n = 0;
+        for (int i : ints) {
+            if (p.test(i)) {
+                ints[n++] = i;
+            }
+        }
+        return list(ints, n);
+    }
+
+    public IntList reverse() {
+        IntList acc = list();
+        for (IntList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = new Cons(list.head(), acc);
+        }
+        return acc;
+    }
+
+    public int[] toArray() {
+        int[] ints = new int[length()];
+        int n = 0;
+        for (IntList list = this; !list.isEmpty(); list = list.tail()) {
+            ints[n++] = list.head();
+        }
+        return ints;
+    }
+
+    // Boxes every element. Only meant for interoperability with List.
+    public List<Integer> toList() {
+        int[] ints = toArray();
+        List<Integer> list = List.list();
+        for (int i = ints.length - 1; i >= 0; i--) {
+            list = list.cons(ints[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[ ");
+        for (IntList list = this; !list.isEmpty(); list = list.tail()) {
+            sb.append(list.head()).append(", ");
+        }
+        return sb.append("NIL ]").toString();
+    }
+}
@@ -7,10 +7,19 @@ import fpinjava.chapter4.Tuple3;
 import fpinjava.chapter7.Result;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static fpinjava.chapter4.TailCall.ret;
 import static fpinjava.chapter4.TailCall.sus;
@@ -100,12 +109,18 @@ public abstract class List<T> {
 
         private List<T> tail;
         private T head;
-        private final int length;
+        private int length; // like tail, only written by a Builder (package-private), before build() publishes the list
 
         private Cons(T head, List<T> tail) {
             this.head = head;
             this.tail = tail;
-            this.length = tail.length() + 1;
+            this.length = tail.lengthMemoized() + 1; // O(1): the tail has its own length
+        }
+
+        private Cons(T head, List<T> tail, int length) {
+            this.head = head;
+            this.tail = tail;
+            this.length = length;
         }
 
         @Override
@@ -174,6 +189,286 @@ public abstract class List<T> {
         }
     }
 
+    // Transient builder: appends to the tail of a list that nobody else can see yet, so that a list is built front
+    // to back in a single pass with one Cons per element, instead of being built reversed and then reversed.
+    // The last Cons is mutated in place until build() publishes the list; the builder can't be used after that.
+    // When the final length is known (map, zipWith), each Cons gets its length when it is created; otherwise
+    // build() writes the lengths in a second pass over the cells, which allocates nothing.
+    // Package-private, so that no code outside this package can hold a list whose cells are still being written.
+    static final class Builder<T> {
+        private final int expectedLength; // -1 if unknown
+        private Cons<T> first;
+        private Cons<T> last;
+        private int length;
+        private boolean built;
+
+        private Builder(int expectedLength) {
+            this.expectedLength = expectedLength;
+        }
+
+        @SuppressWarnings("unchecked")
+        Builder<T> add(T t) {
+            if (built) {
+                throw new IllegalStateException("add() called on a builder whose list has been built");
+            }
+            Cons<T> cons = new Cons<>(t, NIL, expectedLength < 0 ? 0 : expectedLength - length);
+            if (last == null) {
+                first = cons;
+            } else {
+                last.tail = cons;
+            }
+            last = cons;
+            length++;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        Builder<T> addAll(List<T> list) {
+            List<T> l = list;
+            while (l instanceof Chunked) {
+                Chunked<T> chunked = (Chunked<T>) l;
+                Object[] elements = chunked.block.elements;
+                for (int i = chunked.offset; i < CHUNK_SIZE; i++) {
+                    add((T) elements[i]);
+                }
+                l = chunked.next;
+            }
+            for (; !l.isEmpty(); l = l.tail()) {
+                add(l.head());
+            }
+            return this;
+        }
+
+        List<T> build() {
+            if (built) {
+                throw new IllegalStateException("build() called twice");
+            }
+            built = true;
+            if (first == null) {
+                return list();
+            }
+            if (expectedLength != length) {
+                int n = length;
+                for (List<T> l = first; !l.isEmpty(); l = l.tail()) {
+                    ((Cons<T>) l).length = n--;
+                }
+            }
+            List<T> result = first;
+            first = null;
+            last = null;
+            return result;
+        }
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>(-1);
+    }
+
+    // The elements of it, in order, in a single pass with one Cons per element (see Builder).
+    public static <T> List<T> fromIterator(Iterator<T> it) {
+        Builder<T> builder = builder();
+        while (it.hasNext()) {
+            builder.add(it.next());
+        }
+        return builder.build();
+    }
+
+    // Array-backed variant of List.
+    // Elements are stored in immutable arrays (chunks) of CHUNK_SIZE elements, so that folds and maps run over
+    // contiguous memory instead of chasing one pointer (and paying one Cons header) per element.
+    // A Chunked node is block.elements[offset..CHUNK_SIZE - 1] followed by next.
+    // Arrays are filled from the end, so that cons() can write the free slot just before offset.
+    // That slot can only be claimed once (CAS on block.start): older versions of the list never see their array change,
+    // and a cons() on an older version simply starts a new chunk.
+    private static final int CHUNK_SIZE = 32;
+
+    private static class Block {
+        private final Object[] elements;
+        private final AtomicInteger start;
+
+        private Block(Object[] elements, int start) {
+            this.elements = elements;
+            this.start = new AtomicInteger(start);
+        }
+    }
+
+    private static class Chunked<T> extends List<T> {
+
+        private final Block block;
+        private final int offset;
+        private final List<T> next;
+        private final int length;
+
+        private Chunked(Block block, int offset, List<T> next) {
+            this.block = block;
+            this.offset = offset;
+            this.next = next;
+            this.length = CHUNK_SIZE - offset + next.lengthMemoized();
+        }
+
+        // Builds a chunked list from the first n elements of ts, last chunk first.
+        // Only the first chunk can be partially filled.
+        private static <T> List<T> fromArray(Object[] ts, int n) {
+            List<T> list = list();
+            for (int end = n; end > 0; end -= CHUNK_SIZE) {
+                int size = Math.min(CHUNK_SIZE, end);
+                Object[] elements = new Object[CHUNK_SIZE];
+                System.arraycopy(ts, end - size, elements, CHUNK_SIZE - size, size);
+                list = new Chunked<>(new Block(elements, CHUNK_SIZE - size), CHUNK_SIZE - size, list);
+            }
+            return list;
+        }
+
+        // Copies the elements of any list into an array, chunk by chunk for the Chunked part.
+        private static Object[] toArray(List<?> list) {
+            Object[] ts = new Object[list.lengthMemoized()];
+            int n = 0;
+            while (list instanceof Chunked) {
+                Chunked<?> chunked = (Chunked<?>) list;
+                System.arraycopy(chunked.block.elements, chunked.offset, ts, n, CHUNK_SIZE - chunked.offset);
+                n += CHUNK_SIZE - chunked.offset;
+                list = chunked.next;
+            }
+            for (; !list.isEmpty(); list = list.tail()) {
+                ts[n++] = list.head();
+            }
+            return ts;
+        }
+
+        @Override
+        public List<T> cons(T t) {
+            if (offset > 0 && block.start.compareAndSet(offset, offset - 1)) {
+                block.elements[offset - 1] = t;
+                return new Chunked<>(block, offset - 1, next);
+            }
+            Object[] elements = new Object[CHUNK_SIZE];
+            elements[CHUNK_SIZE - 1] = t;
+            return new Chunked<>(new Block(elements, CHUNK_SIZE - 1), CHUNK_SIZE - 1, this);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected T head() {
+            return (T) block.elements[offset];
+        }
+
+        @Override
+        protected List<T> tail() {
+            return offset + 1 < CHUNK_SIZE
+                    ? new Chunked<>(block, offset + 1, next)
+                    : next;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public List<T> setHead(List<T> list, T h) {
+            return list.tail().cons(h);
+        }
+
+        @Override
+        protected String toStringInternal() {
+            StringBuilder sb = new StringBuilder();
+            for (Object t : toArray(this)) {
+                sb.append(t).append(", ");
+            }
+            return sb.append("NIL").toString();
+        }
+
+        @Override
+        public List<T> drop(int n) {
+            List<T> list = this;
+            while (n > 0 && list instanceof Chunked) {
+                Chunked<T> chunked = (Chunked<T>) list;
+                if (n < CHUNK_SIZE - chunked.offset) {
+                    return new Chunked<>(chunked.block, chunked.offset + n, chunked.next);
+                }
+                n -= CHUNK_SIZE - chunked.offset;
+                list = chunked.next;
+            }
+            return n <= 0 ? list : list.drop(n);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<T> dropWhile(Function<T, Boolean> f) {
+            List<T> list = this;
+            while (list instanceof Chunked) {
+                Chunked<T> chunked = (Chunked<T>) list;
+                for (int i = chunked.offset; i < CHUNK_SIZE; i++) {
+                    if (!f.apply((T) chunked.block.elements[i])) {
+                        return i == chunked.offset ? chunked : new Chunked<>(chunked.block, i, chunked.next);
+                    }
+                }
+                list = chunked.next;
+            }
+            return list.dropWhile(f);
+        }
+
+        @Override
+        public int lengthMemoized() {
+            return length;
+        }
+
+        @Override
+        public Result<T> headOption() {
+            return Result.success(head());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> U foldLeft(U identity, Function<U, Function<T, U>> f) {
+            U acc = identity;
+            List<T> list = this;
+            while (list instanceof Chunked) {
+                Chunked<T> chunked = (Chunked<T>) list;
+                Object[] elements = chunked.block.elements;
+                for (int i = chunked.offset; i < CHUNK_SIZE; i++) {
+                    acc = f.apply(acc).apply((T) elements[i]);
+                }
+                list = chunked.next;
+            }
+            return list.foldLeft(acc, f);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> List<U> map(Function<T, U> f) {
+            Object[] ts = toArray(this);
+            for (int i = 0; i < ts.length; i++) {
+                ts[i] = f.apply((T) ts[i]);
+            }
+            return fromArray(ts, ts.length);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<T> filter(Function<T, Boolean> f) {
+            Object[] ts = toArray(this);
+            int n = 0;
+            for (Object t : ts) {
+                if (f.apply((T) t)) {
+                    ts[n++] = t;
+                }
+            }
+            return fromArray(ts, n);
+        }
+
+        @Override
+        public List<T> reverse() {
+            Object[] ts = toArray(this);
+            for (int i = 0, j = ts.length - 1; i < j; i++, j--) {
+                Object t = ts[i];
+                ts[i] = ts[j];
+                ts[j] = t;
+            }
+            return fromArray(ts, ts.length);
+        }
+    }
+
     public static <T> List<T> list() {
         return NIL;
     }
@@ -214,7 +509,38 @@ public abstract class List<T> {
     //     }
     // }
 
-    public <T> List<T> concat(List<T> list) {
+    // Same as list(), but array-backed (see Chunked).
+    // Same chunks as Chunked.fromArray(), copied element by element as in list(): passing ts on to another method
+    // would make -Xlint:varargs warn.
+    @SafeVarargs
+    public static <T> List<T> chunked(T... ts) {
+        List<T> list = list();
+        for (int end = ts.length; end > 0; end -= CHUNK_SIZE) {
+            int offset = CHUNK_SIZE - Math.min(CHUNK_SIZE, end);
+            Object[] elements = new Object[CHUNK_SIZE];
+            for (int i = offset; i < CHUNK_SIZE; i++) {
+                elements[i] = ts[end - CHUNK_SIZE + i];
+            }
+            list = new Chunked<>(new Block(elements, offset), offset, list);
+        }
+        return list;
+    }
+    public static <T> List<T> chunked(List<T> list) {
+        Object[] ts = Chunked.toArray(list);
+        return Chunked.fromArray(ts, ts.length);
+    }
+
+    // Indexed access in O(log32 n) (see Vector)
+    public Vector<T> toVector() {
+        return Vector.fromList(this);
+    }
+
+    // Chained map/filter/takeWhile applied in a single traversal, without intermediate lists (see ListView)
+    public ListView<T> view() {
+        return ListView.of(this);
+    }
+
+    public List<T> concat(List<T> list) {
         return concat_(reverse(), list).eval();
     }
     public static <T> List<T> concat(List<T> list1, List<T> list2) {
@@ -259,7 +585,38 @@ public abstract class List<T> {
                 ? identity
                 : f.apply(head()).apply(tail().foldRightStackUnsafe(identity, f));
     }
+
+    // Applies f to the elements in order, as long as it returns true. Returns false if f stopped the traversal.
+    // Chunks are read from their arrays, as tail() on a Chunked list allocates a new node.
+    @SuppressWarnings("unchecked")
+    boolean forEachWhile(Function<T, Boolean> f) {
+        List<T> list = this;
+        while (!list.isEmpty()) {
+            if (list instanceof Chunked) {
+                Chunked<T> chunked = (Chunked<T>) list;
+                Object[] elements = chunked.block.elements;
+                for (int i = chunked.offset; i < CHUNK_SIZE; i++) {
+                    if (!f.apply((T) elements[i])) {
+                        return false;
+                    }
+                }
+                list = chunked.next;
+            } else {
+                if (!f.apply(list.head())) {
+                    return false;
+                }
+                list = list.tail();
+            }
+        }
+        return true;
+    }
+
+    // O(1): each list stores its length (see lengthMemoized())
     public int length() {
+        return lengthMemoized();
+    }
+    // O(n) and not stack-safe
+    public int lengthWithFoldRight() {
         return foldRightStackUnsafe(0, e -> n -> n + 1);
     }
 
@@ -272,7 +629,7 @@ public abstract class List<T> {
 
     // stack-safe
     public static <T, U> U foldLeft(List<T> list, U identity, Function<U, Function<T, U>> f) {
-        return foldLeftStackSafe_(list, identity, f).eval();
+        return list.foldLeft(identity, f);
     }
     public static <T, U> TailCall<U> foldLeftStackSafe_(List<T> list, U identity, Function<U, Function<T, U>> f) {
         return list.isEmpty()
@@ -280,9 +637,9 @@ public abstract class List<T> {
                 : sus(() -> foldLeftStackSafe_(list.tail(), f.apply(identity).apply(list.head()), f));
     }
 
-    // stack-safe instance method
+    // stack-safe instance method (overridden by Chunked)
     public <U> U foldLeft(U identity, Function<U, Function<T, U>> f) {
-        return foldLeft(this, identity, f);
+        return foldLeftStackSafe_(this, identity, f).eval();
     }
 
     // Exercise 5.11
@@ -329,9 +686,21 @@ public abstract class List<T> {
     }
 
     // Exercise 5.16
-    public static <T> List<T> flatten(List<List<T>> list) {
+    public static <T> List<T> flattenWithConcat(List<List<T>> list) {
         return list.foldRight(list(), l -> acc -> concat(l, acc));
     }
+    // The lists are concatenated in O(1) each (see CatList), then copied once.
+    public static <T> List<T> flatten(List<List<T>> list) {
+        return list.foldLeft(CatList.<T>empty(), acc -> l -> acc.concat(CatList.fromList(l))).toList();
+    }
+    // Each list is copied once at the end of the result, as in flatMap().
+    public static <T> List<T> flattenWithBuilder(List<List<T>> list) {
+        Builder<T> builder = builder();
+        for (List<List<T>> l = list; !l.isEmpty(); l = l.tail()) {
+            builder.addAll(l.head());
+        }
+        return builder.build();
+    }
 
     // Exercise 5.17
     public static List<Integer> triple(List<Integer> list) {
@@ -344,18 +713,49 @@ public abstract class List<T> {
     }
 
     // Exercise 5.19
-    public <U> List<U> map(Function<T, U> f) {
+    public <U> List<U> mapWithFoldRight(Function<T, U> f) {
         return foldRight(list(), t -> list -> list.cons(f.apply(t)));
     }
+    // Single pass, one Cons per element (see Builder). Overridden by Chunked.
+    public <U> List<U> map(Function<T, U> f) {
+        Builder<U> builder = new Builder<>(length());
+        for (List<T> l = this; !l.isEmpty(); l = l.tail()) {
+            builder.add(f.apply(l.head()));
+        }
+        return builder.build();
+    }
 
     // Exercise 5.20
-    public List<T> filter(Function<T, Boolean> f) {
+    public List<T> filterWithFoldRight(Function<T, Boolean> f) {
         return foldRight(list(), t -> list -> f.apply(t) ? list.cons(t) : list);
     }
+    // Single pass, one Cons per element kept. Overridden by Chunked.
+    public List<T> filter(Function<T, Boolean> f) {
+        Builder<T> builder = builder();
+        for (List<T> l = this; !l.isEmpty(); l = l.tail()) {
+            T t = l.head();
+            if (f.apply(t)) {
+                builder.add(t);
+            }
+        }
+        return builder.build();
+    }
 
     // Exercise 5.21
+    public <U> List<U> flatMapWithMap(Function<T, List<U>> f) {
+        return flattenWithConcat(map(f));
+    }
+    // Same as flatten(map(f)), without the intermediate list of lists.
+    public <U> List<U> flatMapWithCatList(Function<T, List<U>> f) {
+        return foldLeft(CatList.<U>empty(), acc -> t -> acc.concat(CatList.fromList(f.apply(t)))).toList();
+    }
+    // Each list returned by f is copied once at the end of the result, with no intermediate structure.
     public <U> List<U> flatMap(Function<T, List<U>> f) {
-        return flatten(map(f));
+        Builder<U> builder = builder();
+        for (List<T> l = this; !l.isEmpty(); l = l.tail()) {
+            builder.addAll(f.apply(l.head()));
+        }
+        return builder.build();
     }
 
     // Exercise 5.22
@@ -404,7 +804,7 @@ public abstract class List<T> {
     }
 
     // Exercise 8.8
-    public static <T, U, V> List<V> zipWith(List<T> list1, List<U> list2, Function<T, Function<U, V>> f) {
+    public static <T, U, V> List<V> zipWithReverse(List<T> list1, List<U> list2, Function<T, Function<U, V>> f) {
         return zipWith_(list1, list2, f, list()).eval().reverse();
     }
     private static <T, U, V> TailCall<List<V>> zipWith_(List<T> list1, List<U> list2, Function<T, Function<U, V>> f, List<V> acc) {
@@ -412,6 +812,17 @@ public abstract class List<T> {
                 ? ret(acc)
                 : sus(() -> zipWith_(list1.tail(), list2.tail(), f, acc.cons(f.apply(list1.head()).apply(list2.head()))));
     }
+    public static <T, U, V> List<V> zipWith(List<T> list1, List<U> list2, Function<T, Function<U, V>> f) {
+        Builder<V> builder = new Builder<>(Math.min(list1.length(), list2.length()));
+        List<T> l1 = list1;
+        List<U> l2 = list2;
+        while (!l1.isEmpty() && !l2.isEmpty()) {
+            builder.add(f.apply(l1.head()).apply(l2.head()));
+            l1 = l1.tail();
+            l2 = l2.tail();
+        }
+        return builder.build();
+    }
 
     // Exercise 8.9
     public static <T, U, V> List<V> product(List<T> list1, List<U> list2, Function<T, Function<U, V>> f) {
@@ -422,17 +833,31 @@ public abstract class List<T> {
     }
 
     // Exercise 8.10
-    public static <T, U> Tuple<List<T>, List<U>> unzip(List<Tuple<T, U>> list) {
+    public static <T, U> Tuple<List<T>, List<U>> unzipWithFoldRight(List<Tuple<T, U>> list) {
         return list.foldRight(new Tuple<>(list(), list()), ttu -> tltlu -> new Tuple<>(tltlu._1.cons(ttu._1), tltlu._2.cons(ttu._2)));
     }
 
     // Exercise 8.11
-    public <T1, T2> Tuple<List<T1>, List<T2>> unzip(Function<T, Tuple<T1, T2>> f) {
+    public <T1, T2> Tuple<List<T1>, List<T2>> unzipWithFoldRight(Function<T, Tuple<T1, T2>> f) {
         return foldRight(new Tuple<>(list(), list()), t -> tlt1lt2 ->  {
             Tuple<T1, T2> tt1t2 = f.apply(t);
             return new Tuple<>(tlt1lt2._1.cons(tt1t2._1), tlt1lt2._2.cons(tt1t2._2));
         });
     }
+    // Both lists are built in the same pass, one Cons per element each.
+    public static <T, U> Tuple<List<T>, List<U>> unzip(List<Tuple<T, U>> list) {
+        return list.unzip(t -> t);
+    }
+    public <T1, T2> Tuple<List<T1>, List<T2>> unzip(Function<T, Tuple<T1, T2>> f) {
+        Builder<T1> builder1 = new Builder<>(length());
+        Builder<T2> builder2 = new Builder<>(length());
+        for (List<T> l = this; !l.isEmpty(); l = l.tail()) {
+            Tuple<T1, T2> tt1t2 = f.apply(l.head());
+            builder1.add(tt1t2._1);
+            builder2.add(tt1t2._2);
+        }
+        return new Tuple<>(builder1.build(), builder2.build());
+    }
 
     // Exercise 8.12
     public Result<T> getAt(int index) {
@@ -720,13 +1145,23 @@ public abstract class List<T> {
 
     // Solution 2 from author
     // Details about this function, see below
-    public static <U, T> List<U> unfold(T t, Function<T, Result<Tuple<U, T>>> f) {
-        return unfold(list(), t, f).eval().reverse();
+    public static <U, T> List<U> unfoldWithReverse(T t, Function<T, Result<Tuple<U, T>>> f) {
+        return unfoldWithReverse(list(), t, f).eval().reverse();
     }
-    private static <U, T> TailCall<List<U>> unfold(List<U> acc, T t, Function<T, Result<Tuple<U, T>>> f) {
-        Result<TailCall<List<U>>> result = f.apply(t).map(rt -> sus(() -> unfold(acc.cons(rt._1), rt._2, f)));
+    private static <U, T> TailCall<List<U>> unfoldWithReverse(List<U> acc, T t, Function<T, Result<Tuple<U, T>>> f) {
+        Result<TailCall<List<U>>> result = f.apply(t).map(rt -> sus(() -> unfoldWithReverse(acc.cons(rt._1), rt._2, f)));
         return result.getOrElse(ret(acc));
     }
+    // Same as unfoldWithReverse(), built front to back in a single pass (see Builder).
+    public static <U, T> List<U> unfold(T t, Function<T, Result<Tuple<U, T>>> f) {
+        Builder<U> builder = builder();
+        for (Result<Tuple<U, T>> r = f.apply(t); r.isSuccess(); ) {
+            Tuple<U, T> next = r.getOrElse((Tuple<U, T>) null);
+            builder.add(next._1);
+            r = f.apply(next._2);
+        }
+        return builder.build();
+    }
     // Question 1: This looks like a new pattern of using TailCall.
     // Normally we do: return <expression> ? sus(() -> <recursive-call>) : ret(<value>);
     // Is this equivalent to that?
@@ -744,6 +1179,7 @@ public abstract class List<T> {
     // The last call should be result.getOrElse(ret(..)) and the result can be achieved in any way as long as TailCall inside is sus(() -> <recursive-call>)
 
     // Exercise 8.19
+    // For numeric code, IntList.range() builds the same list without boxing.
     public static List<Integer> range(int start, int end) {
         return unfold(start, i -> i < end ? success(new Tuple<>(i, i + 1)) : empty());
     }
@@ -821,34 +1257,217 @@ public abstract class List<T> {
     //  In other words, you’ll never have enough heap memory
     //  to hold a list long enoughto cause a stack overflow.
 
+    // parFoldLeft() used to divide the list with divide(1024) (splitListAt() copies and reverses every half)
+    // and to combine the partial results with a sequential foldLeft() on the calling thread.
+    // Each chunk is now folded from identity with fn, and the partial results are combined with m two by two,
+    // in the tasks that forked them (with a ForkJoinPool): the reduction is a balanced tree, computed in parallel.
+    // As before, m must be associative and identity must be neutral for m.
     public<U> Result<U> parFoldLeft(ExecutorService es, U identity, Function<U, Function<T, U>> fn, Function<U, Function<U, U>> m) {
-        List<List<T>> lists = divide(1024);
+        return parFoldLeft(es, identity, fn, m, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    // If the result is not available within the timeout, or if the calling thread is interrupted,
+    // the tasks are cancelled (the tasks that have not started yet are skipped) and the result is a Failure.
+    @SuppressWarnings("unchecked")
+    public<U> Result<U> parFoldLeft(ExecutorService es, U identity, Function<U, Function<T, U>> fn, Function<U, Function<U, U>> m,
+                                    long timeout, TimeUnit unit) {
+        Object[] ts = Chunked.toArray(this);
         try {
-            List<U> list = lists.map(l -> es.submit(() -> l.foldLeft(identity, fn))).map(f -> { // f is Future
-                try {
-                    return f.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException(e);
+            return success(parRun(es, ts.length, from -> to -> {
+                U acc = identity;
+                for (int i = from; i < to; i++) {
+                    acc = fn.apply(acc).apply((T) ts[i]);
                 }
-            });
-            return success(list.foldLeft(identity, m));
+                return acc;
+            }, m, timeout, unit));
+        } catch (TimeoutException e) {
+            return failure(String.format("Timeout after %s %s", timeout, unit));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure(e);
         } catch(Exception e) {
             return failure(e);
         }
     }
 
+    // parMap() used to submit one Callable per element and to wait for each Future in turn:
+    // for a cheap g, the overhead of the tasks was orders of magnitude higher than the work.
+    // It now runs on the parallel engine below, with one task per chunk of elements.
+    @SuppressWarnings("unchecked")
     public <U> Result<List<U>> parMap(ExecutorService es, Function<T, U> g) {
+        Object[] ts = Chunked.toArray(this);
         try {
-            List<U> list = map(t -> es.submit(() -> g.apply(t))).map(f -> { // f is Future
-                try {
-                    return f.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException(e);
+            parRun(es, ts.length, from -> to -> {
+                for (int i = from; i < to; i++) {
+                    ts[i] = g.apply((T) ts[i]);
                 }
-            });
-            return success(list);
+                return to - from;
+            }, n1 -> n2 -> n1 + n2, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            return success(sameKindFromArray(ts, ts.length));
         } catch(Exception e) {
             return failure(e);
         }
     }
+
+    // p is evaluated in parallel, then the kept elements are collected in a single sequential pass.
+    @SuppressWarnings("unchecked")
+    public Result<List<T>> parFilter(ExecutorService es, Function<T, Boolean> p) {
+        Object[] ts = Chunked.toArray(this);
+        boolean[] keep = new boolean[ts.length];
+        try {
+            parRun(es, ts.length, from -> to -> {
+                int kept = 0;
+                for (int i = from; i < to; i++) {
+                    keep[i] = p.apply((T) ts[i]);
+                    kept += keep[i] ? 1 : 0;
+                }
+                return kept;
+            }, n1 -> n2 -> n1 + n2, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            int n = 0;
+            for (int i = 0; i < ts.length; i++) {
+                if (keep[i]) {
+                    ts[n++] = ts[i];
+                }
+            }
+            return success(sameKindFromArray(ts, n));
+        } catch(Exception e) {
+            return failure(e);
+        }
+    }
+
+    // Parallel engine of parMap(), parFilter() and parFoldLeft()
+    // The elements are copied once into an array, and the work is split into ranges of indexes:
+    // no sublist is built (divide() and splitListAt() copy each half twice, reversing it).
+    // With a ForkJoinPool, a ParTask splits its range in two halves, forks the left one and computes the right one,
+    // until the range is not longer than the threshold. Idle workers steal the forked halves (work stealing),
+    // so uneven costs are balanced without fixing the chunks in advance.
+    // With any other ExecutorService, one task is submitted per chunk of threshold elements, and the results are
+    // combined pairwise as they complete (see combineTree()).
+    // On timeout, interruption or failure of a task, the remaining tasks are cancelled.
+    // leaf computes the result of a range (from inclusive, to exclusive), combine merges the results of two adjacent ranges.
+    private static final int PAR_MIN_CHUNK_SIZE = 256;
+    private static final int PAR_TASKS_PER_WORKER = 8;
+
+    // About PAR_TASKS_PER_WORKER tasks per worker, but not less than PAR_MIN_CHUNK_SIZE elements per task,
+    // so that a cheap function is not dominated by the overhead of the tasks.
+    private static int parThreshold(ExecutorService es, int n) {
+        int parallelism = es instanceof ForkJoinPool
+                ? ((ForkJoinPool) es).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        return Math.max(PAR_MIN_CHUNK_SIZE, n / (parallelism * PAR_TASKS_PER_WORKER));
+    }
+
+    private static <R> R parRun(ExecutorService es, int n, Function<Integer, Function<Integer, R>> leaf,
+                                Function<R, Function<R, R>> combine, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        int threshold = parThreshold(es, n);
+        if (es instanceof ForkJoinPool) {
+            ParTask<R> task = new ParTask<>(null, 0, n, threshold, leaf, combine);
+            ((ForkJoinPool) es).execute(task);
+            try {
+                return task.get(timeout, unit);
+            } catch (InterruptedException | TimeoutException e) {
+                task.cancel(true);
+                throw e;
+            }
+        }
+        int chunks = Math.max(n - 1, 0) / threshold + 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CompletableFuture<R>[] leaves = new CompletableFuture[chunks];
+        for (int i = 0; i < chunks; i++) {
+            leaves[i] = new CompletableFuture<>();
+        }
+        // The tree is built before any leaf can complete, so that no combination runs on this thread.
+        CompletableFuture<R> root = combineTree(leaves, 0, chunks, combine);
+        List<Future<?>> futures = list();
+        for (int i = chunks - 1; i >= 0; i--) {
+            int start = i * threshold;
+            CompletableFuture<R> result = leaves[i];
+            futures = futures.cons(es.submit(() -> {
+                try {
+                    result.complete(leaf.apply(start).apply(Math.min(start + threshold, n)));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+        }
+        try {
+            return root.get(timeout, unit);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            for (List<Future<?>> l = futures; !l.isEmpty(); l = l.tail()) {
+                l.head().cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    // Balanced tree of combinations of the results of leaves[from..to - 1]: each pair is combined by the thread that
+    // completes the second of the two (a worker), as soon as both are available, so the reduction runs in parallel
+    // with the remaining leaves, with a depth of log2(number of leaves).
+    private static <R> CompletableFuture<R> combineTree(CompletableFuture<R>[] leaves, int from, int to,
+                                                        Function<R, Function<R, R>> combine) {
+        if (to - from == 1) {
+            return leaves[from];
+        }
+        int mid = (from + to) >>> 1;
+        return combineTree(leaves, from, mid, combine)
+                .thenCombine(combineTree(leaves, mid, to, combine), (r1, r2) -> combine.apply(r1).apply(r2));
+    }
+
+    // All the tasks of a computation check whether its root task has been cancelled before doing any work.
+    private static class ParTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ParTask<R> root;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Function<Integer, Function<Integer, R>> leaf;
+        private final Function<R, Function<R, R>> combine;
+
+        private ParTask(ParTask<R> root, int from, int to, int threshold, Function<Integer, Function<Integer, R>> leaf,
+                        Function<R, Function<R, R>> combine) {
+            this.root = root == null ? this : root;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (root.isCancelled()) {
+                throw new CancellationException();
+            }
+            if (to - from <= threshold) {
+                return leaf.apply(from).apply(to);
+            }
+            int mid = (from + to) >>> 1;
+            ParTask<R> left = new ParTask<>(root, from, mid, threshold, leaf, combine);
+            left.fork();
+            R right;
+            try {
+                right = new ParTask<>(root, mid, to, threshold, leaf, combine).compute();
+            } catch (Throwable e) {
+                left.cancel(true);
+                throw e;
+            }
+            return combine.apply(left.join()).apply(right);
+        }
+    }
+
+    // List of the first n elements of ts, with the same representation as this list (Cons or Chunked).
+    @SuppressWarnings("unchecked")
+    private <U> List<U> sameKindFromArray(Object[] ts, int n) {
+        if (this instanceof Chunked) {
+            return Chunked.fromArray(ts, n);
+        }
+        List<U> list = list();
+        for (int i = n - 1; i >= 0; i--) {
+            list = new Cons<>((U) ts[i], list);
+        }
+        return list;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package fpinjava.chapter8;
+
+import fpinjava.chapter2.Function;
+import fpinjava.chapter7.Result;
+
+import static fpinjava.chapter7.Result.failure;
+import static fpinjava.chapter7.Result.success;
+
+// Lazy view of a List (see List.view()): map(), filter() and takeWhile() only record a stage, and all the stages
+// are applied to each element in a single traversal of the list when a terminal operation is called,
+// so that list.view().map(f).filter(p).map(g).foldLeft(...) builds no intermediate list.
+// As in Stream's Fused, the stages are composed into step, a function returning the transformed element,
+// SKIP if the element is filtered out, or STOP if the traversal ends there.
+// exists(), forAll(), find() and getAt() stop the traversal as soon as the result is known.
+// A view is immutable: each stage returns a new view, and a view can be traversed any number of times.
+public final class ListView<T> {
+
+    private static final Object SKIP = new Object();
+    private static final Object STOP = new Object();
+
+    private final List<Object> source;
+    private final Function<Object, Object> step;
+
+    private ListView(List<Object> source, Function<Object, Object> step) {
+        this.source = source;
+        this.step = step;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ListView<T> of(List<T> list) {
+        return new ListView<>((List<Object>) list, x -> x);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <U> ListView<U> map(Function<T, U> f) {
+        return new ListView<>(source, x -> {
+            Object y = step.apply(x);
+            return y == SKIP || y == STOP ? y : f.apply((T) y);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public ListView<T> filter(Function<T, Boolean> p) {
+        return new ListView<>(source, x -> {
+            Object y = step.apply(x);
+            return y == SKIP || y == STOP || p.apply((T) y) ? y : SKIP;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public ListView<T> takeWhile(Function<T, Boolean> p) {
+        return new ListView<>(source, x -> {
+            Object y = step.apply(x);
+            return y == SKIP || y == STOP || p.apply((T) y) ? y : STOP;
+        });
+    }
+
+    // Feeds the elements that go through all the stages to f, as long as f returns true.
+    @SuppressWarnings("unchecked")
+    private void traverse(Function<T, Boolean> f) {
+        source.forEachWhile(x -> {
+            Object y = step.apply(x);
+            return y != STOP && (y == SKIP || f.apply((T) y));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <U> U foldLeft(U identity, Function<U, Function<T, U>> f) {
+        Object[] acc = {identity};
+        traverse(t -> {
+            acc[0] = f.apply((U) acc[0]).apply(t);
+            return true;
+        });
+        return (U) acc[0];
+    }
+
+    public List<T> toList() {
+        List.Builder<T> builder = List.builder();
+        traverse(t -> {
+            builder.add(t);
+            return true;
+        });
+        return builder.build();
+    }
+
+    public boolean exists(Function<T, Boolean> p) {
+        return find(p).isSuccess();
+    }
+
+    public boolean forAll(Function<T, Boolean> p) {
+        return !exists(t -> !p.apply(t));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Result<T> find(Function<T, Boolean> p) {
+        Object[] found = {null};
+        boolean[] isFound = {false};
+        traverse(t -> {
+            if (p.apply(t)) {
+                found[0] = t;
+                isFound[0] = true;
+                return false;
+            }
+            return true;
+        });
+        return isFound[0] ? success((T) found[0]) : Result.empty();
+    }
+
+    // Same result as toList().getAt(index), reading no further than the element at index.
+    @SuppressWarnings("unchecked")
+    public Result<T> getAt(int index) {
+        Object[] found = {null};
+        int[] remaining = {index};
+        if (index >= 0) {
+            traverse(t -> {
+                if (remaining[0]-- == 0) {
+                    found[0] = t;
+                    return false;
+                }
+                return true;
+            });
+        }
+        return index >= 0 && remaining[0] < 0 ? success((T) found[0]) : failure("Index out of bounds, index: " + index);
+    }
+}
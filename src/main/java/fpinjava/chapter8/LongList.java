@@ -0,0 +1,201 @@
+package fpinjava.chapter8;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+// List specialized for long.
+// Same structure as List (Nil and Cons with the length cached in Cons), but the head is a primitive long
+// and all the functions are primitive functional interfaces, so that numeric code never boxes an element.
+// Loops are imperative: a TailCall<Long> would box the accumulator at every step.
+// See also IntList and DoubleList.
+public abstract class LongList {
+
+    protected abstract long head();
+    protected abstract LongList tail();
+    public abstract boolean isEmpty();
+    public abstract int length();
+
+    private static final LongList NIL = new Nil();
+
+    private LongList() {}
+
+    public LongList cons(long i) {
+        return new Cons(i, this);
+    }
+
+    private static class Nil extends LongList {
+
+        private Nil() {}
+
+        @Override
+        protected long head() {
+            throw new IllegalStateException("head() called on Nil");
+        }
+
+        @Override
+        protected LongList tail() {
+            throw new IllegalStateException("tail() called on Nil");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+    }
+
+    private static class Cons extends LongList {
+
+        private final long head;
+        private final LongList tail;
+        private final int length;
+
+        private Cons(long head, LongList tail) {
+            this.head = head;
+            this.tail = tail;
+            this.length = tail.length() + 1;
+        }
+
+        @Override
+        protected long head() {
+            return head;
+        }
+
+        @Override
+        protected LongList tail() {
+            return tail;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+
+    public static LongList list() {
+        return NIL;
+    }
+
+    public static LongList list(long... longs) {
+        return list(longs, longs.length);
+    }
+
+    // List of the first n elements of longs.
+    private static LongList list(long[] longs, int n) {
+        LongList list = list();
+        for (int i = n - 1; i >= 0; i--) {
+            list = new Cons(longs[i], list);
+        }
+        return list;
+    }
+
+    // Primitive counterpart of List.range()
+    // start is checked before computing end - 1, and the loop stops on start, so that neither can overflow.
+    public static LongList range(long start, long end) {
+        LongList list = list();
+        if (start >= end) {
+            return list;
+        }
+        for (long i = end - 1; ; i--) {
+            list = new Cons(i, list);
+            if (i == start) {
+                return list;
+            }
+        }
+    }
+
+    // Primitive counterpart of List.unfold(): seed, f(seed), f(f(seed)), ... as long as p holds.
+    public static LongList unfold(long seed, LongUnaryOperator f, LongPredicate p) {
+        long[] longs = new long[16];
+        int n = 0;
+        for (long i = seed; p.test(i); i = f.applyAsLong(i)) {
+            if (n == longs.length) {
+                longs = Arrays.copyOf(longs, n * 2);
+            }
+            longs[n++] = i;
+        }
+        return list(longs, n);
+    }
+
+    public long foldLeft(long identity, LongBinaryOperator f) {
+        long acc = identity;
+        for (LongList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = f.applyAsLong(acc, list.head());
+        }
+        return acc;
+    }
+
+    public long sum() {
+        return foldLeft(0L, Long::sum);
+    }
+
+    public long product() {
+        return foldLeft(1L, (a, b) -> a * b);
+    }
+
+    public LongList map(LongUnaryOperator f) {
+        long[] longs = toArray();
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = f.applyAsLong(longs[i]);
+        }
+        return list(longs, longs.length);
+    }
+
+    public LongList filter(LongPredicate p) {
+        long[] longs = toArray();
+        int n = 0;
+        for (long i : longs) {
+            if (p.test(i)) {
+                longs[n++] = i;
+            }
+        }
+        return list(longs, n);
+    }
+
+    public LongList reverse() {
+        LongList acc = list();
+        for (LongList list = this; !list.isEmpty(); list = list.tail()) {
+            acc = new Cons(list.head(), acc);
+        }
+        return acc;
+    }
+
+    public long[] toArray() {
+        long[] longs = new long[length()];
+        int n = 0;
+        for (LongList list = this; !list.isEmpty(); list = list.tail()) {
+            longs[n++] = list.head();
+        }
+        return longs;
+    }
+
+    // Boxes every element. Only meant for interoperability with List.
+    public List<Long> toList() {
+        long[] longs = toArray();
+        List<Long> list = List.list();
+        for (int i = longs.length - 1; i >= 0; i--) {
+            list = list.cons(longs[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[ ");
+        for (LongList list = this; !list.isEmpty(); list = list.tail()) {
+            sb.append(list.head()).append(", ");
+        }
+        return sb.append("NIL ]").toString();
+    }
+}
@@ -0,0 +1,267 @@
+package fpinjava.chapter8;
+
+import fpinjava.chapter2.Function;
+import fpinjava.chapter7.Result;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+import static fpinjava.chapter7.Result.failure;
+import static fpinjava.chapter7.Result.success;
+
+// Persistent vector: a bit-partitioned trie of 32-way nodes, as in Clojure and Scala.
+// Element i is found by taking 5 bits of i per level, so get and set are O(log32 n): at most 4 levels below
+// the root for a million elements, 6 for the largest int indexes. set copies the path to the element only.
+// Tail optimization: the last (up to 32) elements are kept in a separate array, outside the trie, so append only
+// copies this array, and pushes it into the trie once full (every 32 appends).
+// drop only moves the index of the first element (the dropped elements stay referenced until the vector is
+// transformed, e.g. by map or filter). take copies the rightmost path of the trie.
+public final class Vector<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final Object[] EMPTY_TAIL = new Object[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final Vector EMPTY = new Vector<>(0, 0, BITS, EMPTY_NODE, EMPTY_TAIL);
+
+    private final int start; // index of the first element (after drop)
+    private final int count; // index after the last element
+    private final int shift; // BITS times the number of levels below the root
+    private final Object[] root;
+    private final Object[] tail; // elements from tailOffset(count) to count
+
+    private Vector(int start, int count, int shift, Object[] root, Object[] tail) {
+        this.start = start;
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Vector<T> empty() {
+        return EMPTY;
+    }
+
+    @SafeVarargs
+    public static <T> Vector<T> of(T... ts) {
+        Builder<T> builder = new Builder<>();
+        for (T t : ts) {
+            builder.add(t);
+        }
+        return builder.build();
+    }
+
+    public static <T> Vector<T> fromList(List<T> list) {
+        return list.foldLeft(new Builder<T>(), b -> t -> b.add(t)).build();
+    }
+
+    public int length() {
+        return count - start;
+    }
+
+    public boolean isEmpty() {
+        return count == start;
+    }
+
+    private static int tailOffset(int count) {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    // The leaf (or the tail) holding the element at trie index i.
+    private Object[] leafFor(int i) {
+        if (i >= tailOffset(count)) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(i >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Result<T> get(int index) {
+        return index < 0 || index >= length()
+                ? failure("Index out of bounds, index: " + index)
+                : success((T) leafFor(start + index)[(start + index) & MASK]);
+    }
+
+    public Result<Vector<T>> set(int index, T t) {
+        if (index < 0 || index >= length()) {
+            return failure("Index out of bounds, index: " + index);
+        }
+        int i = start + index;
+        if (i >= tailOffset(count)) {
+            Object[] newTail = tail.clone();
+            newTail[i & MASK] = t;
+            return success(new Vector<>(start, count, shift, root, newTail));
+        }
+        return success(new Vector<>(start, count, shift, set(shift, root, i, t), tail));
+    }
+
+    private static Object[] set(int level, Object[] node, int i, Object t) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[i & MASK] = t;
+        } else {
+            int sub = (i >>> level) & MASK;
+            copy[sub] = set(level - BITS, (Object[]) node[sub], i, t);
+        }
+        return copy;
+    }
+
+    public Vector<T> append(T t) {
+        if (count - tailOffset(count) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = t;
+            return new Vector<>(start, count + 1, shift, root, newTail);
+        }
+        return pushTail(new Object[]{t});
+    }
+
+    // Moves the tail, which is full, into the trie, and starts a new tail with the elements of newTail.
+    private Vector<T> pushTail(Object[] newTail) {
+        if ((count >>> BITS) > (1 << shift)) { // the trie is full: one more level
+            Object[] newRoot = EMPTY_NODE.clone();
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            return new Vector<>(start, count + newTail.length, shift + BITS, newRoot, newTail);
+        }
+        return new Vector<>(start, count + newTail.length, shift, pushTail(shift, root, count - 1, tail), newTail);
+    }
+
+    private static Object[] pushTail(int level, Object[] node, int lastIndex, Object[] leaf) {
+        Object[] copy = node.clone();
+        int sub = (lastIndex >>> level) & MASK;
+        copy[sub] = level == BITS
+                ? leaf
+                : node[sub] == null
+                    ? newPath(level - BITS, leaf)
+                    : pushTail(level - BITS, (Object[]) node[sub], lastIndex, leaf);
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = EMPTY_NODE.clone();
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    public Vector<T> take(int n) {
+        return n <= 0
+                ? empty()
+                : n >= length()
+                    ? this
+                    : truncate(start + n);
+    }
+
+    // The elements before newCount (O(log32 n): the rightmost path is copied).
+    private Vector<T> truncate(int newCount) {
+        int newTailOffset = tailOffset(newCount);
+        Object[] newTail = Arrays.copyOf(leafFor(newTailOffset), newCount - newTailOffset);
+        if (newTailOffset == 0) {
+            return new Vector<>(start, newCount, BITS, EMPTY_NODE, newTail);
+        }
+        Object[] newRoot = trim(shift, root, newTailOffset - 1);
+        int newShift = shift;
+        while (newShift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new Vector<>(start, newCount, newShift, newRoot, newTail);
+    }
+
+    // The node without the leaves after the one ending at lastIndex.
+    private static Object[] trim(int level, Object[] node, int lastIndex) {
+        int sub = (lastIndex >>> level) & MASK;
+        Object[] copy = EMPTY_NODE.clone();
+        System.arraycopy(node, 0, copy, 0, sub);
+        copy[sub] = level == BITS ? node[sub] : trim(level - BITS, (Object[]) node[sub], lastIndex);
+        return copy;
+    }
+
+    public Vector<T> drop(int n) {
+        if (n <= 0) {
+            return this;
+        }
+        if (n >= length()) {
+            return empty();
+        }
+        int newStart = start + n;
+        int tailOffset = tailOffset(count);
+        return newStart >= tailOffset && tailOffset > 0
+                // Only tail elements are left: the trie can be released.
+                ? new Vector<>(0, count - newStart, BITS, EMPTY_NODE, Arrays.copyOfRange(tail, newStart - tailOffset, tail.length))
+                : new Vector<>(newStart, count, shift, root, tail);
+    }
+
+    // Loops over the leaves, then over the elements of each leaf.
+    @SuppressWarnings("unchecked")
+    public <U> U foldLeft(U identity, Function<U, Function<T, U>> f) {
+        U acc = identity;
+        for (int i = start; i < count; ) {
+            Object[] leaf = leafFor(i);
+            for (int j = i & MASK; j < leaf.length && i < count; j++, i++) {
+                acc = f.apply(acc).apply((T) leaf[j]);
+            }
+        }
+        return acc;
+    }
+
+    public <U> Vector<U> map(Function<T, U> f) {
+        return foldLeft(new Builder<U>(), b -> t -> b.add(f.apply(t))).build();
+    }
+
+    public Vector<T> filter(Function<T, Boolean> p) {
+        return foldLeft(new Builder<T>(), b -> t -> p.apply(t) ? b.add(t) : b).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> toList() {
+        Object[] ts = new Object[length()];
+        foldLeft(0, i -> t -> {
+            ts[i] = t;
+            return i + 1;
+        });
+        return List.list((T[]) ts);
+    }
+
+    @Override
+    public String toString() {
+        return foldLeft(new StringJoiner(", ", "Vector(", ")"), s -> t -> s.add(String.valueOf(t))).toString();
+    }
+
+    // Builds a vector one leaf at a time: the elements are added to a mutable array, which is pushed into the trie
+    // once full. Not shared: only used inside this class, before build() publishes the vector.
+    private static final class Builder<T> {
+        private Vector<T> full = empty(); // the previous elements, with a full tail
+        private Object[] leaf = new Object[WIDTH];
+        private int n;
+
+        private Builder<T> add(T t) {
+            if (n == WIDTH) {
+                full = full.isEmpty() ? new Vector<>(0, WIDTH, BITS, EMPTY_NODE, leaf) : full.pushTail(leaf);
+                leaf = new Object[WIDTH];
+                n = 0;
+            }
+            leaf[n++] = t;
+            return this;
+        }
+
+        private Vector<T> build() {
+            Object[] last = Arrays.copyOf(leaf, n);
+            return n == 0
+                    ? full
+                    : full.isEmpty()
+                        ? new Vector<>(0, n, BITS, EMPTY_NODE, last)
+                        : full.pushTail(last);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package fpinjava.chapter9;
+
+import fpinjava.chapter7.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Lazy sources of Stream reading a file through memory-mapped windows (see Stream.lines() and Stream.records()).
+// The file is mapped one window at a time, when the stream reaches it, and each lazy step decodes a chunk of elements
+// from the current window (see Stream.chunk()). Nothing is read ahead, and a window is only referenced by the steps
+// reading it, so heap use does not depend on the size of the file (as long as the caller does not hold the head of the stream).
+// The FileChannel is only open while a window is mapped (a MappedByteBuffer stays valid after its channel is closed),
+// so there is nothing to close when the stream is exhausted, or abandoned after take() or takeWhile().
+// A mapping is released when its buffer is garbage collected.
+// Failing to open the file gives a Failure. Failing to map a later window throws UncheckedIOException.
+final class MappedFile {
+
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    static final int CHUNK_SIZE = 1024;
+
+    private MappedFile() {}
+
+    // Lines are split on the bytes of \n and \r before decoding, so the charset must encode them as these single bytes
+    // (UTF-8, ISO-8859-x, US-ASCII, ...). UTF-16 and UTF-32 would be cut in the middle of their code units.
+    static Result<Stream<String>> lines(Path path, Charset charset, int windowSize) {
+        if (!Arrays.equals("\n".getBytes(charset), new byte[]{'\n'}) || !Arrays.equals("\r".getBytes(charset), new byte[]{'\r'})) {
+            return Result.failure(new IllegalArgumentException("Charset not compatible with ASCII line terminators: " + charset));
+        }
+        try {
+            long size = Files.size(path);
+            return Result.success(lines(path, charset, size, windowSize, null, 0, 0));
+        } catch (IOException e) {
+            return Result.failure(e);
+        }
+    }
+
+    static Result<Stream<byte[]>> records(Path path, int recordSize, int windowSize) {
+        if (recordSize <= 0) {
+            return Result.failure("Record size must be positive: " + recordSize);
+        }
+        try {
+            long size = Files.size(path);
+            // Windows hold whole records.
+            int recordsPerWindow = Math.max(1, windowSize / recordSize);
+            return Result.success(records(path, recordSize, size, recordsPerWindow, null, 0, 0));
+        } catch (IOException e) {
+            return Result.failure(e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, long position, long length) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lines from windowStart + offset, window being the mapping starting at windowStart (null if not mapped yet).
+    // Lines end with \n or \r\n, which are not part of the line. The last line may have no terminator.
+    // A line crossing the end of the window is read again from a new window starting at the beginning of the line
+    // (twice as large as the line if it does not fit in windowSize).
+    private static Stream<String> lines(Path path, Charset charset, long size, int windowSize,
+                                        ByteBuffer window, long windowStart, int offset) {
+        if (windowStart + offset >= size) {
+            return Stream.empty();
+        }
+        String[] lines = new String[CHUNK_SIZE];
+        int n = 0;
+        ByteBuffer reader = window == null ? null : window.duplicate();
+        while (n < CHUNK_SIZE && windowStart + offset < size) {
+            int end = window == null ? -1 : indexOf(window, (byte) '\n', offset);
+            if (end >= 0) {
+                int lineEnd = end > offset && window.get(end - 1) == '\r' ? end - 1 : end;
+                lines[n++] = decode(reader, offset, lineEnd, charset);
+                offset = end + 1;
+            } else if (window != null && windowStart + window.limit() == size) {
+                lines[n++] = decode(reader, offset, window.limit(), charset);
+                offset = window.limit();
+            } else {
+                long start = windowStart + offset;
+                long length = window == null ? 0 : 2L * (window.limit() - offset);
+                window = map(path, start, Math.min(Math.min(Math.max(windowSize, length), size - start), Integer.MAX_VALUE));
+                reader = window.duplicate();
+                windowStart = start;
+                offset = 0;
+            }
+        }
+        ByteBuffer w = window;
+        long ws = windowStart;
+        int o = offset;
+        return Stream.chunk(n < CHUNK_SIZE ? Arrays.copyOf(lines, n) : lines,
+                () -> lines(path, charset, size, windowSize, w, ws, o));
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte b, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer reader, int from, int to, Charset charset) {
+        byte[] bytes = new byte[to - from];
+        reader.position(from);
+        reader.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    // Records from windowStart + offset, window being the mapping starting at windowStart
+    // (null if not mapped yet, or exhausted). The last record may be shorter.
+    private static Stream<byte[]> records(Path path, int recordSize, long size, int recordsPerWindow,
+                                          ByteBuffer window, long windowStart, int offset) {
+        if (windowStart + offset >= size) {
+            return Stream.empty();
+        }
+        if (window == null || offset >= window.limit()) {
+            long start = windowStart + offset;
+            window = map(path, start, Math.min((long) recordsPerWindow * recordSize, size - start));
+            windowStart = start;
+            offset = 0;
+        }
+        ByteBuffer reader = window.duplicate();
+        reader.position(offset);
+        int n = Math.min(CHUNK_SIZE, (reader.remaining() + recordSize - 1) / recordSize);
+        byte[][] records = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            records[i] = new byte[Math.min(recordSize, reader.remaining())];
+            reader.get(records[i]);
+        }
+        ByteBuffer w = window;
+        long ws = windowStart;
+        int o = reader.position();
+        return Stream.chunk(records, () -> records(path, recordSize, size, recordsPerWindow, w, ws, o));
+    }
+}
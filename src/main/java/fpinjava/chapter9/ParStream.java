@@ -0,0 +1,69 @@
+package fpinjava.chapter9;
+
+import fpinjava.chapter2.Function;
+import fpinjava.chapter7.Result;
+import fpinjava.chapter8.List;
+
+import java.util.concurrent.ExecutorService;
+
+// Parallel mode of Stream (see Stream.parallel()).
+// map() and filter() are fused into a single function (filtered out elements becoming SKIP), as in Stream.Fused.
+// A terminal operation pulls the source (sequentially, so it must be finite, e.g. after take()) into an array,
+// then applies the fused stages to segments of the array in parallel with the engine of List.parMap() and List.parFoldLeft().
+// toList() keeps the encounter order of the source.
+// Like the parallel operations of List, the result is a Failure if a stage throws or the tasks are interrupted.
+public final class ParStream<A> {
+
+    private static final Object SKIP = new Object();
+
+    private final Stream<?> source;
+    private final ExecutorService es;
+    private final Function<Object, Object> stages;
+
+    private ParStream(Stream<?> source, ExecutorService es, Function<Object, Object> stages) {
+        this.source = source;
+        this.es = es;
+        this.stages = stages;
+    }
+
+    static <A> ParStream<A> of(Stream<A> source, ExecutorService es) {
+        return new ParStream<>(source, es, x -> x);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <B> ParStream<B> map(Function<A, B> f) {
+        return new ParStream<>(source, es, x -> {
+            Object y = stages.apply(x);
+            return y == SKIP ? y : f.apply((A) y);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParStream<A> filter(Function<A, Boolean> p) {
+        return new ParStream<>(source, es, x -> {
+            Object y = stages.apply(x);
+            return y == SKIP || p.apply((A) y) ? y : SKIP;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public Result<List<A>> toList() {
+        return List.chunked(Stream.toArray(source)).parMap(es, stages)
+                .map(list -> (List<A>) list.filter(x -> x != SKIP));
+    }
+
+    // f folds a segment from identity, and m combines the results of adjacent segments (see List.parFoldLeft()).
+    @SuppressWarnings("unchecked")
+    public <B> Result<B> foldLeft(B identity, Function<B, Function<A, B>> f, Function<B, Function<B, B>> m) {
+        return List.chunked(Stream.toArray(source)).parFoldLeft(es, identity, acc -> x -> {
+            Object y = stages.apply(x);
+            return y == SKIP ? acc : f.apply(acc).apply((A) y);
+        }, m);
+    }
+
+    // Back to a sequential Stream, with the same stages.
+    @SuppressWarnings("unchecked")
+    public Stream<A> sequential() {
+        return ((Stream<Object>) source).map(stages).filter(x -> x != SKIP).map(x -> (A) x);
+    }
+}
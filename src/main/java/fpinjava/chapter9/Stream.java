@@ -6,6 +6,17 @@ import fpinjava.chapter4.TailCall;
 import fpinjava.chapter7.Result;
 import fpinjava.chapter8.List;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static fpinjava.chapter4.TailCall.ret;
@@ -65,39 +76,129 @@ public abstract class Stream<A> {
         }
     }
 
+    // Streams are shared between threads, so the cells memoize their head and tail thread-safely, without locks.
+    // A memoized field is null until evaluated, then an Evaluating marker while the thread which claimed it (with a CAS)
+    // calls the Supplier, then the result (NULL standing for null), published with release semantics.
+    // The other threads park on the marker until the result is published, so each Supplier is called exactly once,
+    // unless it throws (whatever the Throwable): the field is then reset to null, the waiting threads are woken up,
+    // and the next access calls it again.
+    // Reads of an evaluated field only cost an acquire read, and a new cell costs no fence at all.
+    private static final Object NULL = new Object();
+    private static final Object EVALUATED = new Object(); // value of a memoized field with no result of its own (Fused)
+
+    // As in chapter4.InFlight, the threads which find the marker wait for the evaluating thread to finish.
+    // The evaluating thread only takes the monitor if a thread announced it was waiting (done and waiting are both
+    // volatile: either the waiting thread sees done, or the evaluating thread sees waiting and wakes it up).
+    private static final class Evaluating {
+        private final Thread thread = Thread.currentThread();
+        private volatile boolean done;
+        private volatile boolean waiting;
+
+        private void finish() {
+            done = true;
+            if (waiting) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private void await() {
+            if (thread == Thread.currentThread()) {
+                throw new IllegalStateException("Stream cell evaluated recursively");
+            }
+            waiting = true;
+            boolean interrupted = false;
+            synchronized (this) {
+                while (!done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <C> Object force(VarHandle field, C cell, Function<C, Object> compute) {
+        Evaluating evaluating = null;
+        while (true) {
+            Object v = field.getAcquire(cell);
+            if (v == null) {
+                if (evaluating == null) {
+                    evaluating = new Evaluating();
+                }
+                if (field.compareAndSet(cell, null, evaluating)) {
+                    try {
+                        v = compute.apply(cell);
+                    } catch (Throwable e) {
+                        field.setRelease(cell, null);
+                        evaluating.finish();
+                        throw e;
+                    }
+                    field.setRelease(cell, v == null ? NULL : v);
+                    evaluating.finish();
+                    return v;
+                }
+            } else if (v instanceof Evaluating) {
+                ((Evaluating) v).await();
+            } else {
+                return v == NULL ? null : v;
+            }
+        }
+    }
+
+    // Fast path: the value of an evaluated field, or null if it has to go through force().
+    private static Object evaluated(VarHandle field, Object cell) {
+        Object v = field.getAcquire(cell);
+        return v == null || v instanceof Evaluating ? null : v;
+    }
+
+    private static VarHandle varHandle(Class<?> c, String name) {
+        try {
+            return MethodHandles.lookup().findVarHandle(c, name, Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private static class Cons<A> extends Stream<A> {
 
+        private static final VarHandle H = varHandle(Cons.class, "h");
+        private static final VarHandle T = varHandle(Cons.class, "t");
+
         private final Supplier<A> head;
         private final Supplier<Stream<A>> tail;
-        private final Result<A> h;
-        private Stream<A> t;
+        @SuppressWarnings("unused") // accessed through H
+        private Object h;
+        @SuppressWarnings("unused") // accessed through T
+        private Object t;
 
         private Cons(Supplier<A> head, Supplier<Stream<A>> tail) {
-            this.tail = tail;
             this.head = head;
-            this.h = Result.empty();
+            this.tail = tail;
         }
 
-        private Cons(A h, Supplier<Stream<A>> t) {
-            head = () -> h;
-            tail = t;
-            this.h = Result.success(h);
+        @SuppressWarnings("unchecked")
+        private A headValue() {
+            Object a = evaluated(H, this);
+            return (A) (a == null ? force(H, this, c -> c.head.get()) : a == NULL ? null : a);
         }
 
         @Override
         protected Tuple<A, Stream<A>> head() {
-            A a = h.getOrElse(head.get());
-            return h.isEmpty()
-                    ? new Tuple<>(a, new Cons<>(a, tail))
-                    : new Tuple<>(a, this);
+            return new Tuple<>(headValue(), this);
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         protected Stream<A> tail() {
-            if(t == null) {
-                t = tail.get();
-            }
-            return t;
+            Object s = evaluated(T, this);
+            return (Stream<A>) (s == null ? force(T, this, c -> c.tail.get()) : s);
         }
 
         @Override
@@ -116,17 +217,33 @@ public abstract class Stream<A> {
         public Stream<A> take(int n) {
             return n <= 0
                     ? empty()
-                    : cons(head, () -> tail().take(n - 1));
+                    : cons(this::headValue, () -> tail().take(n - 1)); // the head is still evaluated once, in this cell
         }
 
         // The recursion in foldRight() is lazy (the recursive call to foldRight() happens in a Supplier).
-        // Lazy but stack-unsafe. See StreamTest.testFoldRight().
+        // Lazy but stack-unsafe as soon as f calls the Supplier: see StreamTest.testFoldRight() and foldRightStackSafe().
         @Override
         public <B> B foldRight(Supplier<B> z, Function<A, Function<Supplier<B>, B>> f) {
             return f.apply(head()._1).apply(() -> tail().foldRight(z, f));
         }
     }
 
+    // Lazy and stack-safe right fold.
+    // f receives the fold of the rest of the stream as a TailCall (not evaluated) and returns a TailCall:
+    // - ret(b) without using rest stops the fold (the rest of the stream is never evaluated),
+    // - rest.map(b -> ...) or rest.flatMap(...) combines the element with the fold of the rest,
+    // - rest itself skips the element.
+    // The pending combinations are chained by TailCall.flatMap() on the heap, so eval() runs in constant stack.
+    // A lazy result (a Stream) is built with ret(cons(() -> a, () -> rest.eval())), which evaluates the rest only when needed.
+    public <B> B foldRightStackSafe(Supplier<B> z, Function<A, Function<TailCall<B>, TailCall<B>>> f) {
+        return foldRightStackSafe_(z, f).eval();
+    }
+    private <B> TailCall<B> foldRightStackSafe_(Supplier<B> z, Function<A, Function<TailCall<B>, TailCall<B>>> f) {
+        return isEmpty()
+                ? ret(z.get())
+                : f.apply(head()._1).apply(sus(() -> tail().foldRightStackSafe_(z, f)));
+    }
+
     // In TailCall was not used, the recursion in drop() would have been eager.
     // That would make drop() function stack-unsafe.
     // Therefore TailCall is added to make recursion-lazy and the function stack-safe.
@@ -139,9 +256,27 @@ public abstract class Stream<A> {
                 : sus(() -> tail().drop_(n - 1));
     }
 
-    public List<A> toList() {
+    public List<A> toListWithReverse() {
         return toList_(List.list()).eval().reverse();
     }
+    // Single pass, one Cons per element (see List.fromIterator()). Overridden by Chunked.
+    public List<A> toList() {
+        return List.fromIterator(new Iterator<A>() {
+            private Stream<A> s = Stream.this;
+
+            @Override
+            public boolean hasNext() {
+                return !s.isEmpty();
+            }
+
+            @Override
+            public A next() {
+                A a = s.head()._1;
+                s = s.tail();
+                return a;
+            }
+        });
+    }
     private TailCall<List<A>> toList_(List<A> acc) {
         return isEmpty() ? ret(acc) : sus(() -> tail().toList_(acc.cons(head()._1)));
     }
@@ -149,12 +284,16 @@ public abstract class Stream<A> {
     // Lazy
     // It is different from book because this implementation is in Stream and in book the implementation is in Cons class.
     // TODO Question: why is this function() stack-safe?
+    // public Stream<A> takeWhile(Function<A, Boolean> p) {
+    //     return isEmpty()
+    //             ? empty()
+    //             : p.apply(head()._1)
+    //                 ? cons(() -> head()._1, () -> tail().takeWhile(p))
+    //                 : empty();
+    // }
+    // takeWhile() is now fused with the other stages of the stream (see Fused).
     public Stream<A> takeWhile(Function<A, Boolean> p) {
-        return isEmpty()
-                ? empty()
-                : p.apply(head()._1)
-                    ? cons(() -> head()._1, () -> tail().takeWhile(p))
-                    : empty();
+        return Fused.of(this).takeWhile(p);
     }
 
     // With TailCall because otherwise it would have been eager-recursion and stack-unsafe.
@@ -206,16 +345,23 @@ public abstract class Stream<A> {
     public Stream<A> takeWhileWithFoldRight(Function<A, Boolean> p) {
         return isEmpty()
                 ? empty()
-                : foldRight(() -> empty(), a -> sa -> p.apply(a) ? cons(() -> a, sa) : empty());
+                : foldRightStackSafe(() -> empty(), a -> sa -> ret(p.apply(a) ? cons(() -> a, sa::eval) : empty()));
     }
 
     public Result<A> headOptionWithFoldRight() {
-        return foldRight(() -> Result.empty(), a -> sb -> Result.success(a));
+        return foldRightStackSafe(() -> Result.empty(), a -> sb -> ret(Result.success(a)));
     }
 
     // Exercise 9.10
+    // With foldRight(): foldRight(Stream::empty, a -> ssb -> cons(() -> f.apply(a), ssb)), where ssb is Supplier<Stream<B>>.
+    public <B> Stream<B> mapWithFoldRight(Function<A, B> f) {
+        return foldRightStackSafe(Stream::empty, a -> tsb -> ret(cons(() -> f.apply(a), tsb::eval))); //tsb is TailCall<Stream<B>>
+    }
+
+    // With mapWithFoldRight(), each stage of a pipeline wraps the previous one in its own cells.
+    // map(), filter(), flatMap() and takeWhile() are fused instead (see Fused).
     public <B> Stream<B> map(Function<A, B> f) {
-        return foldRight(Stream::empty, a -> ssb -> cons(() -> f.apply(a), ssb)); //ssb is Supplier<Stream<B>>
+        return Fused.of(this).map(f);
     }
 
     // This implementation of filter() is lazy but stack-unsafe.
@@ -232,21 +378,607 @@ public abstract class Stream<A> {
     //             : cons(() -> stream.head()._1,
     //             () -> stream.tail().filter(p));
     // }
+    // public Stream<A> filter(Function<A, Boolean> p) {
+    //     Stream<A> stream = this.dropWhile(x -> !p.apply(x));
+    //     return stream.headOption()._1.map(a -> cons(() -> a, () -> stream.tail().filter(p)))
+    //                                 .getOrElse(empty());
+    // }
+    // Fused, and stack-safe as well: Fused skips the non-matching elements in a loop.
     public Stream<A> filter(Function<A, Boolean> p) {
-        Stream<A> stream = this.dropWhile(x -> !p.apply(x));
-        return stream.headOption()._1.map(a -> cons(() -> a, () -> stream.tail().filter(p)))
-                                    .getOrElse(empty());
+        return Fused.of(this).filter(p);
     }
 
+    // With foldRight(), appending to a stream ending with many empty streams (e.g. the result of flatMapWithFoldRight())
+    // overflowed the stack, each Empty forcing the Supplier of the rest.
     public Stream<A> append(Supplier<Stream<A>> s) {
-        return foldRight(s, a -> ssa -> cons(() -> a, ssa));
+        return foldRightStackSafe(s, a -> tsa -> ret(cons(() -> a, tsa::eval)));
+    }
+
+    // An empty f(a) skips to the rest of the fold instead of appending to it, so that long runs of empty streams are stack-safe.
+    public <B> Stream<B> flatMapWithFoldRight(Function<A, Stream<B>> f) {
+        return foldRightStackSafe(() -> empty(), a -> tsb -> {
+            Stream<B> sb = f.apply(a);
+            return sb.isEmpty() ? tsb : ret(sb.append(tsb::eval));
+        });
     }
 
     public <B> Stream<B> flatMap(Function<A, Stream<B>> f) {
-        return foldRight(() -> empty(), a -> sb -> f.apply(a).append(sb));
+        return Fused.of(this).flatMap(f);
     }
 
     // TODO In Stream-s, traversing the elements occurs only once even when multiple filter(), map() functions are composed.
+    // Fused goes further: the stages are applied to each element in a single step, without intermediate cells.
+
+    // Fusion of map(), filter(), takeWhile(), flatMap() and take()
+    // Without fusion, each stage wraps the previous one in its own cells (with their Supplier-s),
+    // so a pipeline of five stages allocates five layers of cells per element.
+    // A Fused stream applies all the stages to an element of the source in a single step:
+    // - map(), filter() and takeWhile() are composed into step, a function returning the transformed element,
+    //   SKIP if the element is filtered out, or STOP if the stream ends there,
+    // - flatMap() expands the result of step into a stream, whose elements go through after (the stages following flatMap()),
+    // - take() limits the number of elements.
+    // A Fused stream is its own cell: it is evaluated once (on the first call to isEmpty(), head(), ...)
+    // by pulling the source until an element goes through all the stages, so there is a single cell per surviving element.
+    // Stages that can't be composed (any stage after take(), a second flatMap()) start a new Fused stream on top of this one.
+    // As with filter() before, evaluating a cell applies the stages eagerly to its element (isEmpty() needs to know whether it survives).
+    private static final Object SKIP = new Object();
+    private static final Object STOP = new Object();
+
+    private static class Fused<A> extends Stream<A> {
+
+        private final Function<Object, Object> step;
+        private final Function<Object, Stream<Object>> expand;
+        private final Function<Object, Object> after;
+        private final int limit; // -1 if no limit
+        // Position of the next element: in inner if it is not null, then in source.
+        // If skipSource (skipInner) is true, the head of source (inner) has already been consumed.
+        private final Stream<Object> source;
+        private final boolean skipSource;
+        private final Stream<Object> inner;
+        private final boolean skipInner;
+
+        private static final VarHandle STATE = varHandle(Fused.class, "state");
+        private static final VarHandle TAIL = varHandle(Fused.class, "tail");
+
+        // Memoized state, set by evaluate(): the element and the position after it.
+        // As in Cons, it is computed once, then published by the release write of state (EVALUATED),
+        // the other fields being written before it and only read after it.
+        @SuppressWarnings("unused") // accessed through STATE
+        private Object state;
+        private boolean empty;
+        private A value;
+        private Stream<Object> nextSource;
+        private boolean nextSkipSource;
+        private Stream<Object> nextInner;
+        @SuppressWarnings("unused") // accessed through TAIL
+        private Object tail;
+
+        private Fused(Function<Object, Object> step, Function<Object, Stream<Object>> expand, Function<Object, Object> after, int limit,
+                      Stream<Object> source, boolean skipSource, Stream<Object> inner, boolean skipInner) {
+            this.step = step;
+            this.expand = expand;
+            this.after = after;
+            this.limit = limit;
+            this.source = source;
+            this.skipSource = skipSource;
+            this.inner = inner;
+            this.skipInner = skipInner;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <A> Fused<A> of(Stream<A> stream) {
+            return new Fused<>(x -> x, null, null, -1, (Stream<Object>) stream, false, null, false);
+        }
+
+        private void evaluate() {
+            if (evaluated(STATE, this) == null) {
+                force(STATE, this, c -> {
+                    c.next();
+                    return EVALUATED;
+                });
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void next() {
+            empty = true;
+            if (limit == 0) {
+                return;
+            }
+            Stream<Object> s = source;
+            boolean skipS = skipSource;
+            Stream<Object> in = inner;
+            boolean skipI = skipInner;
+            while (true) {
+                if (in != null) {
+                    if (skipI) {
+                        in = in.tail();
+                    }
+                    if (!in.isEmpty()) {
+                        Tuple<Object, Stream<Object>> t = in.head();
+                        in = t._2;
+                        skipI = true;
+                        Object b = after.apply(t._1);
+                        if (b == STOP) {
+                            return;
+                        }
+                        if (b != SKIP) {
+                            value = (A) b;
+                            empty = false;
+                            nextSource = s;
+                            nextSkipSource = skipS;
+                            nextInner = in;
+                            return;
+                        }
+                        continue;
+                    }
+                    in = null;
+                }
+                if (skipS) {
+                    s = s.tail();
+                }
+                if (s.isEmpty()) {
+                    return;
+                }
+                Tuple<Object, Stream<Object>> t = s.head();
+                s = t._2;
+                skipS = true;
+                Object b = step.apply(t._1);
+                if (b == STOP) {
+                    return;
+                }
+                if (b == SKIP) {
+                    continue;
+                }
+                if (expand == null) {
+                    value = (A) b;
+                    empty = false;
+                    nextSource = s;
+                    nextSkipSource = true;
+                    return;
+                }
+                in = expand.apply(b);
+                skipI = false;
+            }
+        }
+
+        @Override
+        protected Tuple<A, Stream<A>> head() {
+            evaluate();
+            if (empty) {
+                throw new IllegalStateException("head called on Empty");
+            }
+            return new Tuple<>(value, this);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected Stream<A> tail() {
+            evaluate();
+            if (empty) {
+                throw new IllegalStateException("tail called on Empty");
+            }
+            Object s = evaluated(TAIL, this);
+            return (Stream<A>) (s == null
+                    ? force(TAIL, this, c -> {
+                        // The element has been consumed in nextSource, and in nextInner if it comes from an expansion.
+                        Stream<A> t = new Fused<>(c.step, c.expand, c.after, c.limit < 0 ? -1 : c.limit - 1, c.nextSource, c.nextSkipSource, c.nextInner, true);
+                        c.nextSource = null;
+                        c.nextInner = null;
+                        return t;
+                    })
+                    : s);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            evaluate();
+            return empty;
+        }
+
+        @Override
+        public Tuple<Result<A>, Stream<A>> headOption() {
+            evaluate();
+            return new Tuple<>(empty ? Result.empty() : Result.success(value), this);
+        }
+
+        @Override
+        public Stream<A> take(int n) {
+            return n <= 0
+                    ? empty()
+                    : new Fused<>(step, expand, after, limit < 0 ? n : Math.min(limit, n), source, skipSource, inner, skipInner);
+        }
+
+        @Override
+        public <B> B foldRight(Supplier<B> z, Function<A, Function<Supplier<B>, B>> f) {
+            return isEmpty()
+                    ? z.get()
+                    : f.apply(value).apply(() -> tail().foldRight(z, f));
+        }
+
+        // The stages after flatMap() go into after, the others into step.
+        // Only map() can be added after take(), because it does not change the number of elements.
+        private <B> Stream<B> fuse(Function<Function<Object, Object>, Function<Object, Object>> stage, boolean keepsCount) {
+            if (limit >= 0 && !keepsCount) {
+                return Fused.of(this).fuse(stage, keepsCount);
+            }
+            return expand == null
+                    ? new Fused<>(stage.apply(step), null, null, limit, source, skipSource, inner, skipInner)
+                    : new Fused<>(step, expand, stage.apply(after), limit, source, skipSource, inner, skipInner);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <B> Stream<B> map(Function<A, B> f) {
+            return fuse(g -> x -> {
+                Object y = g.apply(x);
+                return y == SKIP || y == STOP ? y : f.apply((A) y);
+            }, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Stream<A> filter(Function<A, Boolean> p) {
+            return fuse(g -> x -> {
+                Object y = g.apply(x);
+                return y == SKIP || y == STOP || p.apply((A) y) ? y : SKIP;
+            }, false);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Stream<A> takeWhile(Function<A, Boolean> p) {
+            return fuse(g -> x -> {
+                Object y = g.apply(x);
+                return y == SKIP || y == STOP || p.apply((A) y) ? y : STOP;
+            }, false);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <B> Stream<B> flatMap(Function<A, Stream<B>> f) {
+            return limit >= 0 || expand != null
+                    ? Fused.of(this).flatMap(f)
+                    : new Fused<>(step, x -> (Stream<Object>) f.apply((A) x), x -> x, -1, source, skipSource, inner, skipInner);
+        }
+    }
+
+    // Chunked mode: a cell holds a whole chunk of elements (an immutable array, evaluated at once) and the rest of the stream
+    // is a single lazy step for the whole chunk, so that the cost of a thunk (and of producing the elements, e.g. reading
+    // records) is paid once per chunk instead of once per element.
+    // map(), filter(), take(), drop(), exists() and toList() work chunk by chunk; the other operations see the elements one by one.
+    // map() is lazy (its function runs on a chunk when the chunk is read); filter() evaluates the first matching chunk when called.
+    // Like a Cons, a Chunk memoizes the rest thread-safely (see force()).
+    private static final class Chunk {
+        private static final VarHandle REST = varHandle(Chunk.class, "rest");
+
+        private final Object[] elements;
+        private final Supplier<? extends Stream<?>> next;
+        @SuppressWarnings("unused") // accessed through REST
+        private Object rest;
+
+        private Chunk(Object[] elements, Supplier<? extends Stream<?>> next) {
+            this.elements = elements;
+            this.next = next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <A> Stream<A> rest() {
+            Object s = evaluated(REST, this);
+            return (Stream<A>) (s == null ? force(REST, this, c -> c.next.get()) : s);
+        }
+    }
+
+    // The elements of chunk from offset, followed by the rest of chunk.
+    private static class Chunked<A> extends Stream<A> {
+
+        private final Chunk chunk;
+        private final int offset;
+
+        private Chunked(Chunk chunk, int offset) {
+            this.chunk = chunk;
+            this.offset = offset;
+        }
+
+        private static <A> Stream<A> of(Object[] elements, Supplier<Stream<A>> rest) {
+            return new Chunked<>(new Chunk(elements, rest), 0);
+        }
+
+        private int remaining() {
+            return chunk.elements.length - offset;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected Tuple<A, Stream<A>> head() {
+            return new Tuple<>((A) chunk.elements[offset], this);
+        }
+
+        @Override
+        protected Stream<A> tail() {
+            return offset + 1 < chunk.elements.length
+                    ? new Chunked<>(chunk, offset + 1)
+                    : chunk.rest();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public Tuple<Result<A>, Stream<A>> headOption() {
+            Tuple<A, Stream<A>> t = head();
+            return new Tuple<>(Result.success(t._1), t._2);
+        }
+
+        @Override
+        public Stream<A> take(int n) {
+            int remaining = remaining();
+            return n <= 0
+                    ? empty()
+                    : n <= remaining
+                        ? of(Arrays.copyOfRange(chunk.elements, offset, offset + n), Stream::empty)
+                        : new Chunked<>(new Chunk(chunk.elements, () -> chunk.<A>rest().take(n - remaining)), offset);
+        }
+
+        @Override
+        public <B> B foldRight(Supplier<B> z, Function<A, Function<Supplier<B>, B>> f) {
+            return f.apply(head()._1).apply(() -> tail().foldRight(z, f));
+        }
+
+        @Override
+        public Stream<A> drop(int n) {
+            Stream<A> s = this;
+            while (n > 0 && s instanceof Chunked) {
+                Chunked<A> c = (Chunked<A>) s;
+                if (n < c.remaining()) {
+                    return new Chunked<>(c.chunk, c.offset + n);
+                }
+                n -= c.remaining();
+                s = forced(c.chunk.rest());
+            }
+            return s.drop(n);
+        }
+
+        // f is applied to a whole chunk when the first of its elements is read (see Deferred), not when map() is called.
+        @SuppressWarnings("unchecked")
+        @Override
+        public <B> Stream<B> map(Function<A, B> f) {
+            return new Deferred<>(() -> {
+                Object[] bs = new Object[remaining()];
+                for (int i = 0; i < bs.length; i++) {
+                    bs[i] = f.apply((A) chunk.elements[offset + i]);
+                }
+                return of(bs, () -> chunk.<A>rest().map(f));
+            });
+        }
+
+        // Chunks with no matching element are skipped in a loop (stack-safe).
+        @SuppressWarnings("unchecked")
+        @Override
+        public Stream<A> filter(Function<A, Boolean> p) {
+            Stream<A> s = this;
+            while (s instanceof Chunked) {
+                Chunked<A> c = (Chunked<A>) s;
+                Object[] as = new Object[c.remaining()];
+                int n = 0;
+                for (int i = c.offset; i < c.chunk.elements.length; i++) {
+                    if (p.apply((A) c.chunk.elements[i])) {
+                        as[n++] = c.chunk.elements[i];
+                    }
+                }
+                if (n > 0) {
+                    return of(n < as.length ? Arrays.copyOf(as, n) : as, () -> c.chunk.<A>rest().filter(p));
+                }
+                s = forced(c.chunk.rest());
+            }
+            return s.filter(p);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean exists(Function<A, Boolean> p) {
+            Stream<A> s = this;
+            while (s instanceof Chunked) {
+                Chunked<A> c = (Chunked<A>) s;
+                for (int i = c.offset; i < c.chunk.elements.length; i++) {
+                    if (p.apply((A) c.chunk.elements[i])) {
+                        return true;
+                    }
+                }
+                s = forced(c.chunk.rest());
+            }
+            return s.exists(p);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<A> toList() {
+            return List.chunked((A[]) toArray(this));
+        }
+    }
+
+    // A stream computed on first access, then memoized thread-safely (see force()).
+    // Chunked.map() returns one, so that the function runs on a chunk when its elements are read.
+    // The chunk-aware operations are delegated to the computed stream, so they still work chunk by chunk.
+    private static final class Deferred<A> extends Stream<A> {
+        private static final VarHandle STREAM = varHandle(Deferred.class, "stream");
+
+        private final Supplier<Stream<A>> supplier;
+        @SuppressWarnings("unused") // accessed through STREAM
+        private Object stream;
+
+        private Deferred(Supplier<Stream<A>> supplier) {
+            this.supplier = supplier;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Stream<A> get() {
+            Object s = evaluated(STREAM, this);
+            return (Stream<A>) (s == null ? force(STREAM, this, c -> forced(c.supplier.get())) : s);
+        }
+
+        @Override
+        protected Tuple<A, Stream<A>> head() {
+            return get().head();
+        }
+
+        @Override
+        protected Stream<A> tail() {
+            return get().tail();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return get().isEmpty();
+        }
+
+        @Override
+        public Tuple<Result<A>, Stream<A>> headOption() {
+            return get().headOption();
+        }
+
+        @Override
+        public Stream<A> take(int n) {
+            return n <= 0 ? empty() : new Deferred<>(() -> get().take(n));
+        }
+
+        @Override
+        public <B> B foldRight(Supplier<B> z, Function<A, Function<Supplier<B>, B>> f) {
+            return get().foldRight(z, f);
+        }
+
+        @Override
+        public Stream<A> drop(int n) {
+            return get().drop(n);
+        }
+
+        @Override
+        public <B> Stream<B> map(Function<A, B> f) {
+            return new Deferred<>(() -> get().map(f));
+        }
+
+        @Override
+        public Stream<A> filter(Function<A, Boolean> p) {
+            return get().filter(p);
+        }
+
+        @Override
+        public boolean exists(Function<A, Boolean> p) {
+            return get().exists(p);
+        }
+
+        @Override
+        public List<A> toList() {
+            return get().toList();
+        }
+    }
+
+    // The stream computed by a Deferred (never a Deferred itself), so that the loops over chunks see the next Chunked
+    // instead of delegating to it recursively (one stack frame per chunk).
+    @SuppressWarnings("unchecked")
+    private static <A> Stream<A> forced(Stream<A> s) {
+        return s instanceof Deferred ? ((Deferred<A>) s).get() : s;
+    }
+
+    // Copies the elements of a finite stream into an array, chunk by chunk for the Chunked parts.
+    static Object[] toArray(Stream<?> stream) {
+        Object[] as = new Object[16];
+        int n = 0;
+        Stream<?> s = forced(stream);
+        while (!s.isEmpty()) {
+            int k = s instanceof Chunked ? ((Chunked<?>) s).remaining() : 1;
+            if (n + k > as.length) {
+                as = Arrays.copyOf(as, Math.max(n + k, as.length * 2));
+            }
+            if (s instanceof Chunked) {
+                Chunked<?> c = (Chunked<?>) s;
+                System.arraycopy(c.chunk.elements, c.offset, as, n, k);
+                s = forced(c.chunk.rest());
+            } else {
+                as[n] = s.head()._1;
+                s = s.tail();
+            }
+            n += k;
+        }
+        return Arrays.copyOf(as, n);
+    }
+
+    // Parallel evaluation of map() and filter() stages over a finite stream (see ParStream).
+    public ParStream<A> parallel(ExecutorService es) {
+        return ParStream.of(this, es);
+    }
+
+    // Interoperability with java.util.stream: StreamSupport.stream(stream.spliterator(), true) is a parallel JDK stream.
+    // The spliterator traverses the stream sequentially; trySplit() hands out batches of elements (see Spliterators.AbstractSpliterator).
+    public Spliterator<A> spliterator() {
+        return new StreamSpliterator<>(this);
+    }
+
+    private static class StreamSpliterator<A> extends Spliterators.AbstractSpliterator<A> {
+
+        private Stream<A> stream;
+
+        private StreamSpliterator(Stream<A> stream) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.stream = stream;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super A> action) {
+            if (stream.isEmpty()) {
+                return false;
+            }
+            Tuple<A, Stream<A>> t = stream.head();
+            stream = t._2.tail();
+            action.accept(t._1);
+            return true;
+        }
+    }
+
+    // A chunked stream pulling the elements of spliterator 1024 at a time (the first chunk when called).
+    public static <A> Stream<A> fromSpliterator(Spliterator<A> spliterator) {
+        Object[] as = new Object[1024];
+        int[] n = {0};
+        while (n[0] < as.length && spliterator.tryAdvance(a -> as[n[0]++] = a)) {
+            // tryAdvance() stores the element
+        }
+        return n[0] == 0
+                ? empty()
+                : n[0] < as.length
+                    ? Chunked.of(Arrays.copyOf(as, n[0]), Stream::empty)
+                    : Chunked.of(as, () -> fromSpliterator(spliterator));
+    }
+
+    // Regroups the elements of this stream into chunks of n elements (the last one may be shorter).
+    // Like filter(), it evaluates the first chunk when called; the following ones are evaluated one chunk at a time.
+    // Chunked parts of this stream are copied with System.arraycopy(), the other elements are pulled one by one.
+    @SuppressWarnings("unchecked")
+    public Stream<A> rechunk(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + n);
+        }
+        Object[] as = new Object[n];
+        int size = 0;
+        Stream<A> s = forced(this);
+        while (size < n && !s.isEmpty()) {
+            if (s instanceof Chunked) {
+                Chunked<A> c = (Chunked<A>) s;
+                int k = Math.min(n - size, c.remaining());
+                System.arraycopy(c.chunk.elements, c.offset, as, size, k);
+                size += k;
+                s = k < c.remaining() ? new Chunked<>(c.chunk, c.offset + k) : forced(c.chunk.rest());
+            } else {
+                as[size++] = s.head()._1;
+                s = s.tail();
+            }
+        }
+        Stream<A> rest = s;
+        return size == 0
+                ? empty()
+                : Chunked.of(size < n ? Arrays.copyOf(as, size) : as, () -> rest.rechunk(n));
+    }
 
     public Result<A> find(Function<A, Boolean> p) {
         return filter(p).headOption()._1;
@@ -292,6 +1024,60 @@ public abstract class Stream<A> {
     public static <A, S> Stream<A> unfold(S z, Function<S, Result<Tuple<A, S>>> f) {
         return f.apply(z).map(x -> cons(() -> x._1, () -> unfold(x._2, f))).getOrElse(empty());
     }
+    // A chunk of elements followed by rest. The array is not copied, so it must not be modified afterwards.
+    // An empty array evaluates rest immediately.
+    public static <A> Stream<A> chunk(A[] as, Supplier<Stream<A>> rest) {
+        return as.length == 0 ? rest.get() : Chunked.of(as, rest);
+    }
+
+    // Lazy sources reading a file through memory-mapped windows, one chunk of lines or records per step (see MappedFile).
+    public static Result<Stream<String>> lines(Path path) {
+        return lines(path, StandardCharsets.UTF_8);
+    }
+
+    public static Result<Stream<String>> lines(Path path, Charset charset) {
+        return MappedFile.lines(path, charset, MappedFile.WINDOW_SIZE);
+    }
+
+    public static Result<Stream<byte[]>> records(Path path, int recordSize) {
+        return MappedFile.records(path, recordSize, MappedFile.WINDOW_SIZE);
+    }
+
+    // Chunked versions of unfold(), iterate() and from(): each lazy step produces chunkSize elements.
+    public static <A, S> Stream<A> unfold(S z, Function<S, Result<Tuple<A, S>>> f, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        Object[] as = new Object[chunkSize];
+        int size = 0;
+        S s = z;
+        while (size < chunkSize) {
+            Tuple<A, S> t = f.apply(s).getOrElse(() -> null);
+            if (t == null) {
+                return size == 0 ? empty() : Chunked.of(Arrays.copyOf(as, size), Stream::empty);
+            }
+            as[size++] = t._1;
+            s = t._2;
+        }
+        S next = s;
+        return Chunked.of(as, () -> unfold(next, f, chunkSize));
+    }
+
+    public static <A> Stream<A> iterate(A seed, Function<A, A> f, int chunkSize) {
+        return unfold(seed, a -> Result.success(new Tuple<>(a, f.apply(a))), chunkSize);
+    }
+
+    public static Stream<Integer> from(int i, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        Object[] is = new Object[chunkSize];
+        for (int k = 0; k < chunkSize; k++) {
+            is[k] = i + k;
+        }
+        return Chunked.of(is, () -> from(i + chunkSize, chunkSize));
+    }
+
 //    public Stream<A> repeat(A a) {
 //        return unfold(a, a1 -> Result.success(new Tuple<>(a1, a1)));
 //    }
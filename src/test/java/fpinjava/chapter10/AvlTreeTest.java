@@ -0,0 +1,118 @@
+package fpinjava.chapter10;
+
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter8.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AvlTreeTest {
+
+    // Checks ordering and balance of every node, returns the height.
+    private static <A extends Comparable<A>> int checkBalanced(Tree<A> tree) {
+        if (tree.isEmpty()) {
+            return -1;
+        }
+        tree.left().max().forEach(max -> assertTrue(max.compareTo(tree.value()) < 0));
+        tree.right().min().forEach(min -> assertTrue(min.compareTo(tree.value()) > 0));
+        int left = checkBalanced(tree.left());
+        int right = checkBalanced(tree.right());
+        assertTrue(Math.abs(left - right) <= 1);
+        assertEquals(1 + Math.max(left, right), tree.height());
+        return 1 + Math.max(left, right);
+    }
+
+    private static AvlTree<Integer> sorted(int size) {
+        AvlTree<Integer> tree = AvlTree.empty();
+        for (int i = 0; i < size; i++) {
+            tree = tree.insert(i);
+        }
+        return tree;
+    }
+
+    @Test
+    public void testInsertSorted() {
+        AvlTree<Integer> tree = sorted(1_000_000);
+        assertEquals(1_000_000, tree.size());
+        assertTrue(tree.height() <= 28);
+        assertTrue(tree.member(0));
+        assertTrue(tree.member(999_999));
+        assertFalse(tree.member(1_000_000));
+        assertEquals("Success(0)", tree.min().toString());
+        assertEquals("Success(999999)", tree.max().toString());
+        checkBalanced(sorted(1_000));
+    }
+
+    @Test
+    public void testRemove() {
+        AvlTree<Integer> tree = sorted(1_000);
+        for (int i = 0; i < 1_000; i += 3) {
+            tree = tree.remove(i);
+        }
+        checkBalanced(tree);
+        assertEquals(666, tree.size());
+        assertFalse(tree.member(3));
+        assertTrue(tree.member(4));
+        assertEquals(666, tree.remove(3).remove(-1).size());
+    }
+
+    @Test
+    public void testFolds() {
+        AvlTree<Integer> tree = AvlTree.tree(4, 2, 6, 1, 3, 5, 7);
+        assertEquals("1234567", tree.foldInOrder("", l -> v -> r -> l + v + r));
+        assertEquals("4213657", tree.foldPreOrder("", v -> l -> r -> v + l + r));
+        assertEquals(28, tree.foldLeft(0, acc -> v -> acc + v));
+    }
+
+    @Test
+    public void testMergeAndMap() {
+        AvlTree<Integer> tree = sorted(100);
+        Tree<Integer> merged = tree.merge(Tree.tree(List.list(150, 120, 180)));
+        assertEquals(103, merged.size());
+        checkBalanced(merged);
+        Tree<Integer> mapped = tree.map(i -> -i);
+        assertEquals("Success(-99)", mapped.min().toString());
+        checkBalanced(mapped);
+    }
+
+    @Test
+    public void testOrderStatistics() {
+        AvlTree<Integer> tree = sorted(1_000);
+        assertEquals("Success(500)", tree.getAt(500).toString());
+        assertEquals(500, tree.rank(500));
+        Tuple<Tree<Integer>, Tree<Integer>> t = tree.split(300);
+        assertEquals(300, t._1.size());
+        assertEquals(700, t._2.size());
+        assertEquals("Success(299)", t._1.max().toString());
+        assertEquals("Success(300)", t._2.min().toString());
+        checkBalanced(t._1);
+        checkBalanced(t._2);
+    }
+
+    @Test
+    public void testTreeFromSorted() {
+        AvlTree<Integer> tree = AvlTree.treeFromSorted(List.range(0, 1000));
+        assertEquals(1000, tree.size());
+        assertEquals(9, checkBalanced(tree));
+        checkBalanced(tree.insert(1000).insert(1001).remove(500));
+        assertEquals(10, AvlTree.treeFromSorted(3, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10).size());
+    }
+
+    @Test
+    public void testSetOperations() {
+        AvlTree<Integer> evens = AvlTree.treeFromSorted(List.range(0, 1000).filter(i -> i % 2 == 0));
+        AvlTree<Integer> threes = AvlTree.treeFromSorted(List.range(0, 1000).filter(i -> i % 3 == 0));
+        AvlTree<Integer> union = evens.union(threes);
+        assertEquals(667, union.size());
+        checkBalanced(union);
+        assertEquals(167, evens.intersection(threes).size());
+        assertTrue(evens.intersection(threes).member(996));
+        assertEquals(333, evens.difference(threes).size());
+        assertFalse(evens.difference(threes).member(6));
+        Tree<Integer> merged = evens.merge(threes);
+        assertEquals(667, merged.size());
+        checkBalanced(merged);
+    }
+}
@@ -0,0 +1,165 @@
+package fpinjava.chapter10;
+
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter2.Function;
+import fpinjava.chapter8.List;
+import fpinjava.chapter9.Stream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TreeTest {
+
+    Tree<Integer> tree = Tree.tree(50, 20, 80, 10, 30, 70, 90, 60);
+
+    @Test
+    public void testSizeAndHeight() {
+        assertEquals(8, tree.size());
+        assertEquals(3, tree.height());
+        assertEquals(7, tree.remove(20).size());
+        assertEquals(0, Tree.<Integer>empty().size());
+        assertEquals(-1, Tree.<Integer>empty().height());
+    }
+
+    @Test
+    public void testGetAt() {
+        assertEquals("Success(10)", tree.getAt(0).toString());
+        assertEquals("Success(50)", tree.getAt(3).toString());
+        assertEquals("Success(60)", tree.getAt(4).toString());
+        assertEquals("Success(90)", tree.getAt(7).toString());
+        assertEquals("Failure(Index out of bounds, index: 8)", tree.getAt(8).toString());
+        assertEquals("Failure(Index out of bounds, index: -1)", tree.getAt(-1).toString());
+    }
+
+    @Test
+    public void testRank() {
+        assertEquals(0, tree.rank(10));
+        assertEquals(0, tree.rank(5));
+        assertEquals(3, tree.rank(50));
+        assertEquals(4, tree.rank(55));
+        assertEquals(8, tree.rank(100));
+    }
+
+    @Test
+    public void testSplit() {
+        Tuple<Tree<Integer>, Tree<Integer>> t = tree.split(55);
+        assertEquals("10, 20, 30, 50", t._1.foldInOrder("", l -> v -> r -> join(join(l, v.toString()), r)));
+        assertEquals("60, 70, 80, 90", t._2.foldInOrder("", l -> v -> r -> join(join(l, v.toString()), r)));
+        assertEquals(4, tree.split(60)._2.size());
+        assertEquals(0, tree.split(0)._1.size());
+    }
+
+    // A right spine of 0 .. n - 1 (the shape insert() produces with sorted elements), built without recursion.
+    private static Tree<Integer> degenerate(int n) {
+        Tree<Integer> result = Tree.empty();
+        for (int i = n - 1; i >= 0; i--) {
+            result = Tree.tree(Tree.empty(), i, result);
+        }
+        return result;
+    }
+
+    @Test
+    public void testFoldsOrder() {
+        Function<String, Function<Integer, Function<String, String>>> inOrder = l -> v -> r -> join(join(l, v.toString()), r);
+        assertEquals("10, 20, 30, 50, 60, 70, 80, 90", tree.foldInOrder("", inOrder));
+        assertEquals("50, 20, 10, 30, 80, 70, 60, 90", tree.foldPreOrder("", v -> l -> r -> join(join(v.toString(), l), r)));
+        assertEquals("10, 30, 20, 60, 70, 90, 80, 50", tree.foldPostOrder("", l -> r -> v -> join(join(l, r), v.toString())));
+        assertEquals("50, 20, 10, 30, 80, 70, 60, 90", tree.foldLeft("", s -> v -> join(s, v.toString())));
+        assertEquals("[ 50, 20, 10, 30, 80, 70, 60, 90, NIL ]", tree.toListPreOrderLeft().toString());
+        assertEquals("[ 10, 20, 30, 50, 60, 70, 80, 90, NIL ]", tree.toStreamInOrder().toList().toString());
+        assertEquals("[ NIL ]", Tree.<Integer>empty().toStreamInOrder().toList().toString());
+    }
+
+    // Above Tree.MAX_RECURSIVE_HEIGHT, folds switch to an explicit stack and must give the same results as the recursive ones.
+    @Test
+    public void testFoldsAboveRecursiveHeight() {
+        Tree<Integer> t = degenerate(Tree.MAX_RECURSIVE_HEIGHT * 2);
+        Function<String, Function<Integer, Function<String, String>>> inOrder = l -> v -> r -> join(join(l, v.toString()), r);
+        String expected = List.range(0, Tree.MAX_RECURSIVE_HEIGHT * 2).foldLeft("", s -> v -> join(s, v.toString()));
+        String reversed = List.range(0, Tree.MAX_RECURSIVE_HEIGHT * 2).reverse().foldLeft("", s -> v -> join(s, v.toString()));
+        assertEquals(expected, t.foldInOrder("", inOrder));
+        assertEquals(expected, t.foldPreOrder("", v -> l -> r -> join(join(v.toString(), l), r)));
+        // g puts the right subtree first
+        assertEquals(reversed, t.foldLeft("", s -> v -> join(s, v.toString()), s1 -> s2 -> join(s1, s2)));
+        assertEquals(expected, t.toListPreOrderLeft().foldLeft("", s -> v -> join(s, v.toString())));
+        assertEquals(reversed, t.foldPostOrder("", l -> r -> v -> join(join(l, r), v.toString())));
+        assertEquals(Integer.valueOf(Tree.MAX_RECURSIVE_HEIGHT * 2), t.foldRight(0, v -> s -> s + 1, s1 -> s2 -> s1 + s2));
+    }
+
+    @Test
+    public void testDegenerateTreeIsStackSafe() {
+        int n = 100_000;
+        Tree<Integer> t = degenerate(n);
+        assertEquals(n - 1, t.height());
+        assertEquals(Integer.valueOf(n), t.foldInOrder(0, l -> v -> r -> l + r + 1));
+        assertEquals(Integer.valueOf(n), t.foldPreOrder(0, v -> l -> r -> l + r + 1));
+        assertEquals(Integer.valueOf(n), t.foldPostOrder(0, l -> r -> v -> l + r + 1));
+        assertEquals(Integer.valueOf(n), t.foldLeft(0, s -> v -> s + 1, s1 -> s2 -> s1 + s2));
+        assertEquals(Integer.valueOf(n), t.foldRight(0, v -> s -> s + 1, s1 -> s2 -> s1 + s2));
+        assertEquals(Integer.valueOf(n), t.foldLeft(0, s -> v -> s + 1));
+        assertEquals("Success(99999)", t.max().toString());
+        assertEquals("Success(0)", t.min().toString());
+        assertEquals("[ 0, 1, 2, NIL ]", t.toStreamInOrder().take(3).toList().toString());
+        assertEquals("[ 99999, NIL ]", t.toStreamInOrder().drop(n - 1).toList().toString());
+        Tuple<Tree<Integer>, Tree<Integer>> halves = t.split(n - 10);
+        assertEquals(n - 10, halves._1.size());
+        assertEquals(10, halves._2.size());
+        assertEquals("Success(99989)", halves._1.max().toString());
+    }
+
+    private static String inOrder(Tree<Integer> t) {
+        return t.foldInOrder("", l -> v -> r -> join(join(l, v.toString()), r));
+    }
+
+    @Test
+    public void testTreeFromSorted() {
+        Tree<Integer> t = Tree.treeFromSorted(List.list(10, 20, 30, 50, 60, 70, 80, 90));
+        assertEquals("10, 20, 30, 50, 60, 70, 80, 90", inOrder(t));
+        assertEquals(3, t.height());
+        assertEquals("10, 20, 30", inOrder(Tree.treeFromSorted(10, 10, 20, 30, 30)));
+        assertEquals("10, 20, 30, 50", inOrder(Tree.treeFromSorted(30, 10, 50, 20, 10)));
+        assertEquals("0, 1, 2, 3, 4", inOrder(Tree.treeFromSorted(Stream.from(0).take(5))));
+        assertEquals(0, Tree.treeFromSorted(List.<Integer>list()).size());
+    }
+
+    @Test
+    public void testTreeFromSortedChunkedList() {
+        Integer[] as = new Integer[100];
+        for (int i = 0; i < as.length; i++) {
+            as[i] = i;
+        }
+        Tree<Integer> t = Tree.treeFromSorted(List.chunked(as));
+        assertEquals(100, t.size());
+        assertEquals(6, t.height());
+        assertEquals(inOrder(Tree.treeFromSorted(as)), inOrder(t));
+    }
+
+    @Test
+    public void testTreeFromSortedIsPerfectlyBalanced() {
+        Integer[] as = new Integer[1_000_000];
+        for (int i = 0; i < as.length; i++) {
+            as[i] = i;
+        }
+        Tree<Integer> t = Tree.treeFromSorted(as);
+        assertEquals(1_000_000, t.size());
+        assertEquals(19, t.height());
+        assertEquals("Success(123456)", t.getAt(123456).toString());
+        assertEquals(19, Tree.treeFromSorted(Stream.from(0).take(1_000_000)).height());
+    }
+
+    @Test
+    public void testSetOperations() {
+        Tree<Integer> other = Tree.tree(5, 30, 55, 60, 100);
+        assertEquals("5, 10, 20, 30, 50, 55, 60, 70, 80, 90, 100", inOrder(tree.union(other)));
+        assertEquals("30, 60", inOrder(tree.intersection(other)));
+        assertEquals("10, 20, 50, 70, 80, 90", inOrder(tree.difference(other)));
+        assertEquals("5, 55, 100", inOrder(other.difference(tree)));
+        assertEquals(8, tree.union(Tree.empty()).size());
+        assertEquals(0, tree.intersection(Tree.empty()).size());
+        assertEquals(3, tree.union(other).height());
+    }
+
+    private static String join(String s1, String s2) {
+        return s1.isEmpty() ? s2 : s2.isEmpty() ? s1 : s1 + ", " + s2;
+    }
+}
@@ -0,0 +1,163 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncMemoCacheTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    // The futures returned by the function, completed by the test.
+    private final AtomicReference<CompletableFuture<Integer>> pending = new AtomicReference<>();
+
+    private final Function<Integer, CompletableFuture<Integer>> remote = x -> {
+        calls.incrementAndGet();
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        pending.set(future);
+        return future;
+    };
+
+    @Test
+    public void testConcurrentCallsShareTheFuture() throws Exception {
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(remote);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            Future<CompletableFuture<Integer>> r1 = es.submit(() -> f.apply(1));
+            Future<CompletableFuture<Integer>> r2 = es.submit(() -> f.apply(1));
+            CompletableFuture<Integer> f1 = r1.get();
+            assertSame(f1, r2.get());
+            assertFalse(f1.isDone());
+            pending.get().complete(2);
+            assertEquals(2, f1.get());
+            assertEquals(2, f.apply(1).get());
+        } finally {
+            es.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testFailedFutureIsRemoved() throws Exception {
+        AsyncMemoCache<Integer, Integer> cache = AsyncMemoCache.of(CacheSpec.unbounded());
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(remote, cache);
+        CompletableFuture<Integer> f1 = f.apply(1);
+        assertSame(f1, f.apply(1));
+        pending.get().completeExceptionally(new IllegalStateException("boom"));
+        ExecutionException e = assertThrows(ExecutionException.class, f1::get);
+        assertEquals("boom", e.getCause().getMessage());
+        assertEquals(0, cache.size());
+        CompletableFuture<Integer> f2 = f.apply(1);
+        pending.get().complete(2);
+        assertEquals(2, f2.get());
+        assertSame(f2, f.apply(1));
+        assertEquals(2, calls.get());
+        assertEquals("CacheStats(hits=2, misses=2, evictions=0)", cache.stats().toString());
+    }
+
+    @Test
+    public void testAlreadyFailedFutureIsNotCached() throws Exception {
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(x -> calls.incrementAndGet() == 1
+                ? CompletableFuture.failedFuture(new IllegalStateException("boom"))
+                : CompletableFuture.completedFuture(x * 2));
+        assertTrue(f.apply(1).isCompletedExceptionally());
+        assertEquals(2, f.apply(1).get());
+        assertEquals(2, f.apply(1).get());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        AtomicLong time = new AtomicLong();
+        AsyncMemoCache<Integer, Integer> cache = new AsyncMemoCache<>(CacheSpec.unbounded()
+                .refreshAfterWrite(Duration.ofNanos(10))
+                .expireAfterWrite(Duration.ofNanos(20)), time::get);
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(remote, cache);
+        CompletableFuture<Integer> f1 = f.apply(1);
+        pending.get().complete(1);
+        time.set(12);
+        // Still the current value, and a refresh in the background
+        assertSame(f1, f.apply(1));
+        assertSame(f1, f.apply(1));
+        assertEquals(2, calls.get());
+        CompletableFuture<Integer> refreshed = pending.get();
+        refreshed.complete(2);
+        time.set(21); // f1 would have expired, the refreshed value is 9 ns old
+        assertSame(refreshed, f.apply(1));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsTheValue() throws Exception {
+        AtomicLong time = new AtomicLong();
+        AsyncMemoCache<Integer, Integer> cache = new AsyncMemoCache<>(CacheSpec.unbounded()
+                .refreshAfterWrite(Duration.ofNanos(10)), time::get);
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(remote, cache);
+        CompletableFuture<Integer> f1 = f.apply(1);
+        pending.get().complete(1);
+        time.set(10);
+        assertSame(f1, f.apply(1));
+        pending.get().completeExceptionally(new IllegalStateException("boom"));
+        assertSame(f1, f.apply(1)); // refreshed again
+        assertEquals(3, calls.get());
+        pending.get().complete(3);
+        assertEquals(3, f.apply(1).get());
+    }
+
+    @Test
+    public void testRefreshThrowingAnErrorIsRetried() throws Exception {
+        AtomicLong time = new AtomicLong();
+        AsyncMemoCache<Integer, Integer> cache = new AsyncMemoCache<>(CacheSpec.unbounded()
+                .refreshAfterWrite(Duration.ofNanos(10)), time::get);
+        AtomicInteger refreshes = new AtomicInteger();
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(x -> {
+            if (calls.get() > 0 && refreshes.incrementAndGet() == 1) {
+                throw new AssertionError("boom");
+            }
+            return remote.apply(x);
+        }, cache);
+        CompletableFuture<Integer> f1 = f.apply(1);
+        pending.get().complete(1);
+        time.set(10);
+        assertThrows(AssertionError.class, () -> f.apply(1));
+        assertSame(f1, f.apply(1)); // refreshed again
+        assertEquals(2, calls.get());
+        pending.get().complete(2);
+        assertEquals(2, f.apply(1).get());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        AtomicLong time = new AtomicLong();
+        AsyncMemoCache<Integer, Integer> cache = new AsyncMemoCache<>(CacheSpec.maximumSize(10, CacheSpec.Eviction.LRU)
+                .expireAfterWrite(Duration.ofNanos(10)), time::get);
+        Function<Integer, CompletableFuture<Integer>> f = Memoizer.memoizeAsync(x -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(x);
+        }, cache);
+        f.apply(1);
+        time.set(10);
+        assertEquals(1, f.apply(1).get());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testWeakValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AsyncMemoCache.of(CacheSpec.unbounded().weakValues()));
+    }
+}
@@ -0,0 +1,299 @@
+package fpinjava.chapter4;
+
+import fpinjava.chapter2.Function;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MemoCacheTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final Function<Integer, Integer> twice = x -> {
+        calls.incrementAndGet();
+        return x * 2;
+    };
+
+    @Test
+    public void testMemoize() {
+        Function<Integer, Integer> f = Memoizer.memoize(twice, CacheSpec.maximumSize(10, CacheSpec.Eviction.LRU));
+        assertEquals(4, f.apply(2));
+        assertEquals(4, f.apply(2));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testStats() {
+        MemoCache<Integer, Integer> cache = MemoCache.of(CacheSpec.unbounded());
+        Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+        f.apply(1);
+        f.apply(1);
+        f.apply(2);
+        f.apply(1);
+        assertEquals("CacheStats(hits=2, misses=2, evictions=0)", cache.stats().toString());
+        assertEquals(0.5, cache.stats().hitRate());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLru() {
+        MemoCache<Integer, Integer> cache = MemoCache.of(CacheSpec.maximumSize(3, CacheSpec.Eviction.LRU));
+        Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+        f.apply(1);
+        f.apply(2);
+        f.apply(3);
+        f.apply(1); // 2 is now the least recently used
+        f.apply(4);
+        assertEquals(3, cache.size());
+        assertEquals(4, calls.get());
+        f.apply(1);
+        f.apply(3);
+        f.apply(4);
+        assertEquals(4, calls.get());
+        f.apply(2);
+        assertEquals(5, calls.get());
+        assertEquals("CacheStats(hits=4, misses=5, evictions=2)", cache.stats().toString());
+    }
+
+    // A scan of keys used once evicts the hot keys with LRU, not with W-TinyLFU.
+    @Test
+    public void testTinyLfuResistsScans() {
+        for (CacheSpec.Eviction eviction : CacheSpec.Eviction.values()) {
+            MemoCache<Integer, Integer> cache = MemoCache.of(CacheSpec.maximumSize(100, eviction));
+            Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+            for (int i = 0; i < 20; i++) {
+                for (int hot = 0; hot < 50; hot++) {
+                    f.apply(hot);
+                }
+            }
+            for (int cold = 1_000; cold < 2_000; cold++) {
+                f.apply(cold);
+            }
+            calls.set(0);
+            for (int hot = 0; hot < 50; hot++) {
+                f.apply(hot);
+            }
+            assertTrue(cache.size() <= 100);
+            assertEquals(eviction == CacheSpec.Eviction.LRU ? 50 : 0, calls.get(), eviction.toString());
+        }
+    }
+
+    @Test
+    public void testExpireAfterWrite() {
+        AtomicLong time = new AtomicLong();
+        MemoCache<Integer, Integer> cache = new MemoCache<>(CacheSpec.unbounded().expireAfterWrite(Duration.ofNanos(10)), time::get);
+        Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+        f.apply(1);
+        time.set(5);
+        f.apply(2);
+        f.apply(1);
+        assertEquals(2, calls.get());
+        time.set(10);
+        f.apply(1); // expired: recomputed
+        assertEquals(3, calls.get());
+        time.set(15);
+        f.apply(3); // 2 has expired, and is removed on insertion
+        assertEquals(2, cache.size());
+        time.set(100);
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+        assertEquals("CacheStats(hits=1, misses=4, evictions=4)", cache.stats().toString());
+    }
+
+    @Test
+    public void testWeakValues() throws InterruptedException {
+        MemoCache<Integer, byte[]> cache = MemoCache.of(CacheSpec.unbounded().weakValues());
+        Function<Integer, byte[]> f = Memoizer.memoize(x -> {
+            calls.incrementAndGet();
+            return new byte[1_000_000];
+        }, cache);
+        byte[] value = f.apply(1);
+        assertTrue(value == f.apply(1));
+        value = null;
+        for (int i = 0; i < 10 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            cache.cleanUp();
+        }
+        assertEquals(0, cache.size());
+        f.apply(1);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testSoftValuesAreKept() {
+        Function<Integer, Integer> f = Memoizer.memoize(twice, CacheSpec.unbounded().softValues());
+        f.apply(1);
+        System.gc();
+        f.apply(1);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        MemoCache<Integer, Integer> cache = MemoCache.of(CacheSpec.maximumSize(10, CacheSpec.Eviction.TINY_LFU));
+        Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+        f.apply(1);
+        f.apply(2);
+        cache.invalidate(1);
+        assertEquals(1, cache.size());
+        f.apply(1);
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        f.apply(2);
+        assertEquals(4, calls.get());
+    }
+
+    // The function may call the memoized function, even if the cache evicts entries meanwhile.
+    @Test
+    public void testRecursiveFunction() {
+        for (CacheSpec.Eviction eviction : CacheSpec.Eviction.values()) {
+            MemoCache<Integer, BigInteger> cache = MemoCache.of(CacheSpec.maximumSize(100, eviction));
+            AtomicReference<Function<Integer, BigInteger>> fibo = new AtomicReference<>();
+            fibo.set(Memoizer.memoize(n -> n < 2
+                    ? BigInteger.valueOf(n)
+                    : fibo.get().apply(n - 1).add(fibo.get().apply(n - 2)), cache));
+            BigInteger last = BigInteger.ZERO;
+            for (int n = 0; n <= 10_000; n++) {
+                last = fibo.get().apply(n);
+            }
+            assertEquals(2090, last.toString().length());
+            assertEquals(BigInteger.valueOf(12586269025L), fibo.get().apply(50));
+            assertTrue(cache.size() <= 100);
+        }
+    }
+
+    @Test
+    public void testRecursionOnTheSameKey() {
+        AtomicReference<Function<Integer, Integer>> f = new AtomicReference<>();
+        f.set(Memoizer.memoize(n -> f.get().apply(n), CacheSpec.unbounded()));
+        assertThrows(IllegalStateException.class, () -> f.get().apply(1));
+    }
+
+    // Equal to the keys with the same id. hashCode() throws once after failNext is set.
+    private static final class FlakyKey {
+        private final int id;
+        private volatile boolean failNext;
+
+        private FlakyKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FlakyKey && ((FlakyKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("hashCode");
+            }
+            return id;
+        }
+    }
+
+    // The value is computed, but can't be stored: the caller waiting for the same key gets the exception.
+    @Test
+    public void testFailureWhilePublishingReleasesTheWaiters() throws Exception {
+        MemoCache<FlakyKey, Integer> cache = MemoCache.of(CacheSpec.unbounded());
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FlakyKey key = new FlakyKey(1);
+        ExecutorService es = Executors.newFixedThreadPool(1);
+        try {
+            Future<Integer> first = es.submit(() -> cache.get(key, k -> {
+                computing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                key.failNext = true;
+                return 1;
+            }));
+            computing.await();
+            AtomicReference<Throwable> waiterFailure = new AtomicReference<>();
+            Thread waiter = new Thread(() -> {
+                try {
+                    cache.get(new FlakyKey(1), k -> 2);
+                } catch (Throwable e) {
+                    waiterFailure.set(e);
+                }
+            });
+            waiter.setDaemon(true);
+            waiter.start();
+            while (waiter.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            waiter.join(5_000);
+            assertFalse(waiter.isAlive());
+            assertSame(e.getCause(), waiterFailure.get());
+            assertEquals(3, cache.get(new FlakyKey(1), k -> 3));
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidSpec() {
+        assertThrows(IllegalArgumentException.class, () -> CacheSpec.maximumSize(0, CacheSpec.Eviction.LRU));
+        assertThrows(IllegalArgumentException.class, () -> CacheSpec.unbounded().expireAfterWrite(Duration.ZERO));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        for (CacheSpec.Eviction eviction : CacheSpec.Eviction.values()) {
+            MemoCache<Integer, Integer> cache = MemoCache.of(CacheSpec.maximumSize(100, eviction));
+            Function<Integer, Integer> f = Memoizer.memoize(twice, cache);
+            ExecutorService es = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int seed = t;
+                    results.add(es.submit(() -> {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 20_000; i++) {
+                            int key = random.nextInt(500);
+                            if (f.apply(key) != key * 2) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            } finally {
+                es.shutdownNow();
+            }
+            assertTrue(cache.size() <= 100, eviction + ": " + cache.size());
+            MemoCache.CacheStats stats = cache.stats();
+            assertEquals(160_000, stats.hits + stats.misses);
+            assertEquals(stats.misses - cache.size(), stats.evictions, eviction.toString());
+        }
+    }
+}
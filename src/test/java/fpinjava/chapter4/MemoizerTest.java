@@ -1,8 +1,24 @@
 package fpinjava.chapter4;
 
+import fpinjava.chapter1.Tuple;
 import fpinjava.chapter2.Function;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class MemoizerTest<T, U> {
 
     // Curried form
@@ -57,4 +73,202 @@ public class MemoizerTest<T, U> {
         System.out.println(time1);
         System.out.println(time2);
     }
-}
\ No newline at end of file
+
+    // Recursive memoized functions
+    Function<Integer, BigInteger> fibo = Memoizer.memoize(n ->
+            n < 2 ? BigInteger.valueOf(n) : this.fibo.apply(n - 1).add(this.fibo.apply(n - 2)));
+
+    Function<Integer, Boolean> isEven = Memoizer.memoize(n -> n == 0 || this.isOdd.apply(n - 1));
+    Function<Integer, Boolean> isOdd = Memoizer.memoize(n -> n != 0 && this.isEven.apply(n - 1));
+
+    // The recursion is 10,000 calls deep: it runs in a thread with a large stack.
+    private static <A> A withLargeStack(java.util.function.Supplier<A> s) throws InterruptedException {
+        AtomicReference<A> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> result.set(s.get()), "large-stack", 1L << 28);
+        thread.start();
+        thread.join();
+        return result.get();
+    }
+
+    @Test
+    public void testRecursiveFibo() throws InterruptedException {
+        BigInteger fibo10000 = withLargeStack(() -> fibo.apply(10_000));
+        assertEquals(2090, fibo10000.toString().length());
+        assertTrue(fibo10000.toString().startsWith("336447648764317832666216120051075433103021484606800639065647"));
+        assertEquals(BigInteger.valueOf(12586269025L), fibo.apply(50));
+    }
+
+    // In increasing order, each call only recurses once: no need for a large stack.
+    @Test
+    public void testRecursiveFiboIncremental() {
+        BigInteger last = BigInteger.ZERO;
+        for (int n = 0; n <= 10_000; n++) {
+            last = fibo.apply(n);
+        }
+        assertEquals(2090, last.toString().length());
+    }
+
+    @Test
+    public void testMutualRecursion() throws InterruptedException {
+        assertEquals(true, withLargeStack(() -> isEven.apply(10_000)));
+        assertEquals(true, isOdd.apply(9_999));
+        assertEquals(false, withLargeStack(() -> isOdd.apply(5_000)));
+    }
+
+    @Test
+    public void testRecursionOnTheSameKey() {
+        AtomicReference<Function<Integer, Integer>> f = new AtomicReference<>();
+        f.set(Memoizer.memoize(n -> f.get().apply(n)));
+        assertThrows(IllegalStateException.class, () -> f.get().apply(1));
+        // The failed computation is not memoized
+        assertThrows(IllegalStateException.class, () -> f.get().apply(1));
+    }
+
+    @Test
+    public void testConcurrentCallersWaitForOneComputation() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Integer, Integer> f = Memoizer.memoize(n -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return n * 2;
+        });
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(es.submit(() -> f.apply(21)));
+            started.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(es.submit(() -> f.apply(21)));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get());
+            }
+        } finally {
+            es.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testExceptionIsNotMemoized() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, Integer> f = Memoizer.memoize(n -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalArgumentException("boom");
+            }
+            return n;
+        });
+        assertThrows(IllegalArgumentException.class, () -> f.apply(1));
+        assertEquals(1, f.apply(1));
+        assertEquals(1, f.apply(1));
+        assertEquals(2, calls.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    // A checked exception thrown sneakily by the function is not memoized either (nor left as a computation in progress).
+    @Test
+    public void testCheckedExceptionIsNotMemoized() {
+        for (boolean withCache : new boolean[]{false, true}) {
+            AtomicInteger calls = new AtomicInteger();
+            Function<Integer, Integer> g = n -> {
+                if (calls.incrementAndGet() == 1) {
+                    throw MemoizerTest.<RuntimeException>sneakyThrow(new IOException("boom"));
+                }
+                return n;
+            };
+            Function<Integer, Integer> f = withCache ? Memoizer.memoize(g, CacheSpec.unbounded()) : Memoizer.memoize(g);
+            assertThrows(IOException.class, () -> f.apply(1));
+            assertEquals(1, f.apply(1));
+            assertEquals(1, f.apply(1));
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    public void testMemoize2() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, Function<Integer, Integer>> f = Memoizer.memoize2(x -> y -> {
+            calls.incrementAndGet();
+            return x - y;
+        });
+        assertEquals(1, f.apply(3).apply(2));
+        assertEquals(1, f.apply(3).apply(2));
+        Function<Integer, Integer> f3 = f.apply(3);
+        assertEquals(1, f3.apply(2));
+        assertEquals(-1, f.apply(2).apply(3));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testMemoize3() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, Function<Integer, Function<Integer, Integer>>> f = Memoizer.memoize3(x -> y -> z -> {
+            calls.incrementAndGet();
+            return x + y - z;
+        }, CacheSpec.maximumSize(10, CacheSpec.Eviction.LRU));
+        assertEquals(1, f.apply(2).apply(3).apply(4));
+        assertEquals(1, f.apply(2).apply(3).apply(4));
+        assertEquals(5, f.apply(2).apply(4).apply(1));
+        assertEquals(2, calls.get());
+    }
+
+    // As with memoize2(), null arguments are part of the key.
+    @Test
+    public void testMemoize3NullArguments() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, Function<String, Function<String, String>>> f = Memoizer.memoize3(x -> y -> z -> {
+            calls.incrementAndGet();
+            return x + y + z;
+        });
+        assertEquals("nullanull", f.apply(null).apply("a").apply(null));
+        assertEquals("nullanull", f.apply(null).apply("a").apply(null));
+        assertEquals("anullnull", f.apply("a").apply(null).apply(null));
+        assertEquals(2, calls.get());
+        assertEquals("nullnull", Memoizer.<String, String, String>memoize2(x -> y -> x + y).apply(null).apply(null));
+    }
+
+    // The partially applied layers are not called again for cached arguments.
+    @Test
+    public void testMemoize4() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, Function<String, Function<String, Function<String, String>>>> f = Memoizer.memoize4(a -> {
+            calls.incrementAndGet();
+            return b -> c -> d -> a + b + c + d;
+        });
+        assertEquals("abcd", f.apply("a").apply("b").apply("c").apply("d"));
+        assertEquals("abcd", f.apply("a").apply("b").apply("c").apply("d"));
+        assertEquals("abce", f.apply("a").apply("b").apply("c").apply("e"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testMemoizeTuple() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<Tuple<Integer, String>, String> f = Memoizer.memoize(t -> {
+            calls.incrementAndGet();
+            return t._2 + t._1;
+        });
+        assertEquals("a1", f.apply(new Tuple<>(1, "a")));
+        assertEquals("a1", f.apply(new Tuple<>(1, "a")));
+        Function<Tuple3<Integer, Integer, Integer>, Integer> g = Memoizer.memoize(t -> {
+            calls.incrementAndGet();
+            return t._1 + t._2 + t._3;
+        });
+        assertEquals(6, g.apply(new Tuple3<>(1, 2, 3)));
+        assertEquals(6, g.apply(new Tuple3<>(1, 2, 3)));
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,77 @@
+package fpinjava.chapter4;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static fpinjava.chapter4.TailCall.ret;
+import static fpinjava.chapter4.TailCall.sus;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TailCallTest {
+
+    private static TailCall<Long> sum(int n, long acc) {
+        return n == 0
+                ? ret(acc)
+                : sus(() -> sum(n - 1, acc + n));
+    }
+
+    @Test
+    public void testRet() {
+        assertFalse(ret(1).isSuspend());
+        assertEquals(1, ret(1).eval());
+    }
+
+    @Test
+    public void testSus() {
+        assertTrue(sum(1, 0).isSuspend());
+        assertEquals(55L, sum(10, 0).eval());
+    }
+
+    @Test
+    public void testSusFromSupplier() {
+        Supplier<TailCall<Long>> next = () -> sum(10, 0);
+        TailCall<Long> tc = TailCall.susFromSupplier(next);
+        assertTrue(tc.isSuspend());
+        assertEquals(55L, tc.eval());
+    }
+
+    @Test
+    public void testStackSafe() {
+        assertEquals(500_000_500_000L, sum(1_000_000, 0).eval());
+    }
+
+    // Not tail-recursive: the addition happens after the recursive call
+    private static TailCall<Long> sumNonTail(int n) {
+        return n == 0
+                ? ret(0L)
+                : sus(() -> sumNonTail(n - 1)).map(s -> s + n);
+    }
+
+    private static TailCall<Long> fibo(int n) {
+        return n < 2
+                ? ret(1L)
+                : sus(() -> fibo(n - 1)).flatMap(a -> fibo(n - 2).map(b -> a + b));
+    }
+
+    @Test
+    public void testMapAndFlatMap() {
+        assertEquals(55L, sumNonTail(10).eval());
+        assertEquals(89L, fibo(10).eval());
+        assertEquals(6, ret(1).map(i -> i + 1).flatMap(i -> ret(i * 3)).eval());
+    }
+
+    @Test
+    public void testFlatMapIsStackSafe() {
+        assertEquals(500_000_500_000L, sumNonTail(1_000_000).eval());
+        // Left-nested chain of continuations
+        TailCall<Long> tc = ret(0L);
+        for (int i = 1; i <= 1_000_000; i++) {
+            long n = i;
+            tc = tc.map(s -> s + n);
+        }
+        assertEquals(500_000_500_000L, tc.eval());
+    }
+}
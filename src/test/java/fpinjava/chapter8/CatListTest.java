@@ -0,0 +1,104 @@
+package fpinjava.chapter8;
+
+import fpinjava.chapter1.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import static fpinjava.chapter8.List.list;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CatListTest {
+
+    @Test
+    public void testConcat() {
+        CatList<Integer> l = CatList.fromList(list(1, 2))
+                .concat(CatList.empty())
+                .concat(CatList.fromList(list(3)))
+                .concat(CatList.fromList(list(4, 5)).concat(CatList.fromList(list(6))))
+                .snoc(7)
+                .cons(0);
+        assertEquals("[ 0, 1, 2, 3, 4, 5, 6, 7, NIL ]", l.toString());
+        assertEquals(8, l.length());
+        assertEquals(28, l.foldLeft(0, a -> i -> a + i));
+        assertEquals("[ NIL ]", CatList.empty().toString());
+    }
+
+    @Test
+    public void testUncons() {
+        CatList<Integer> l = CatList.fromList(list(1, 2)).concat(CatList.fromList(list(3))).concat(CatList.fromList(list(4)));
+        StringBuilder sb = new StringBuilder();
+        while (!l.isEmpty()) {
+            Tuple<Integer, CatList<Integer>> t = l.uncons().getOrElse(new Tuple<>(null, CatList.empty()));
+            sb.append(t._1);
+            l = t._2;
+            assertEquals(4 - sb.length(), l.length());
+        }
+        assertEquals("1234", sb.toString());
+        assertEquals("Empty()", l.uncons().toString());
+        assertEquals("Success(1)", CatList.fromList(list(1, 2)).headOption().toString());
+    }
+
+    // cons, snoc, concat and uncons at random, checked against an ArrayDeque
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        Deque<Integer> expected = new ArrayDeque<>();
+        CatList<Integer> l = CatList.empty();
+        for (int i = 0; i < 100_000; i++) {
+            int op = random.nextInt(4);
+            if (op == 0) {
+                expected.addFirst(i);
+                l = l.cons(i);
+            } else if (op == 1) {
+                expected.addLast(i);
+                l = l.snoc(i);
+            } else if (op == 2) {
+                expected.addLast(i);
+                expected.addLast(-i);
+                l = l.concat(CatList.fromList(list(i, -i)));
+            } else if (!expected.isEmpty()) {
+                int head = expected.removeFirst();
+                Tuple<Integer, CatList<Integer>> t = l.uncons().getOrElse(new Tuple<>(null, CatList.empty()));
+                assertEquals(head, t._1);
+                l = t._2;
+            }
+        }
+        assertEquals(expected.size(), l.length());
+        assertEquals(list(expected.toArray(new Integer[0])).toString(), l.toString());
+    }
+
+    // Long chains of concat, on either side, are traversed and unconsed without recursion.
+    @Test
+    public void testStackSafety() {
+        CatList<Integer> left = CatList.empty();
+        CatList<Integer> right = CatList.empty();
+        for (int i = 0; i < 100_000; i++) {
+            left = left.concat(CatList.fromList(list(i)));
+            right = CatList.fromList(list(i)).concat(right);
+        }
+        assertEquals(100_000, left.toList().length());
+        assertEquals(99_999, right.toList().headOption().getOrElse(-1));
+        CatList<Integer> l = right;
+        long sum = 0;
+        while (!l.isEmpty()) {
+            Tuple<Integer, CatList<Integer>> t = l.uncons().getOrElse(new Tuple<>(null, CatList.empty()));
+            sum += t._1;
+            l = t._2;
+        }
+        assertEquals(4_999_950_000L, sum);
+    }
+
+    @Test
+    public void testListFlatMap() {
+        List<Integer> ints = List.range(0, 10_000);
+        assertEquals(ints.flatMapWithMap(i -> list(i, -i)).toString(), ints.flatMap(i -> list(i, -i)).toString());
+        List<List<Integer>> lists = ints.map(i -> List.range(0, i % 5));
+        assertEquals(List.flattenWithConcat(lists).toString(), List.flatten(lists).toString());
+        assertEquals(List.flattenWithConcat(lists).toString(), List.flattenWithBuilder(lists).toString());
+        assertTrue(List.flatten(List.<List<Integer>>list()).isEmpty());
+    }
+}
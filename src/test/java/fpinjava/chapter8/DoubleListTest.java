@@ -0,0 +1,25 @@
+package fpinjava.chapter8;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DoubleListTest {
+
+    DoubleList list = DoubleList.list(1.0, 2.0, 3.0, 4.0);
+
+    @Test
+    public void testUnfold() {
+        assertEquals("[ 1.0, 0.5, 0.25, NIL ]", DoubleList.unfold(1.0, d -> d / 2, d -> d > 0.2).toString());
+    }
+
+    @Test
+    public void testOperations() {
+        assertEquals(10.0, list.sum());
+        assertEquals(24.0, list.product());
+        assertEquals(List.product(List.list(1.0, 2.0, 3.0, 4.0)), list.product());
+        assertEquals("[ 0.5, 1.0, 1.5, 2.0, NIL ]", list.map(d -> d / 2).toString());
+        assertEquals("[ 3.0, 4.0, NIL ]", list.filter(d -> d > 2.5).toString());
+        assertEquals("[ 4.0, 3.0, 2.0, 1.0, NIL ]", list.reverse().toString());
+    }
+}
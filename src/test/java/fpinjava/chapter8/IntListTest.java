@@ -0,0 +1,51 @@
+package fpinjava.chapter8;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IntListTest {
+
+    IntList list = IntList.list(1, 2, 3, 4, 5);
+
+    @Test
+    public void testRange() {
+        assertEquals("[ 1, 2, 3, 4, 5, NIL ]", IntList.range(1, 6).toString());
+        assertEquals("[ NIL ]", IntList.range(6, 1).toString());
+        assertEquals("[ NIL ]", IntList.range(0, Integer.MIN_VALUE).toString());
+        assertEquals("[ " + Integer.MIN_VALUE + ", NIL ]", IntList.range(Integer.MIN_VALUE, Integer.MIN_VALUE + 1).toString());
+        assertEquals("[ " + (Integer.MAX_VALUE - 1) + ", NIL ]", IntList.range(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).toString());
+        assertEquals("[ NIL ]", LongList.range(0, Long.MIN_VALUE).toString());
+        assertEquals("[ " + Long.MIN_VALUE + ", NIL ]", LongList.range(Long.MIN_VALUE, Long.MIN_VALUE + 1).toString());
+    }
+
+    @Test
+    public void testUnfold() {
+        assertEquals("[ 1, 2, 4, 8, 16, 32, 64, NIL ]", IntList.unfold(1, i -> i * 2, i -> i < 100).toString());
+    }
+
+    @Test
+    public void testFoldLeft() {
+        assertEquals(-15, list.foldLeft(0, (acc, i) -> acc - i));
+        assertEquals(15, list.sum());
+        assertEquals(120, list.product());
+    }
+
+    @Test
+    public void testMapFilterReverse() {
+        assertEquals("[ 2, 4, 6, 8, 10, NIL ]", list.map(i -> i * 2).toString());
+        assertEquals("[ 2, 4, NIL ]", list.filter(i -> i % 2 == 0).toString());
+        assertEquals("[ 5, 4, 3, 2, 1, NIL ]", list.reverse().toString());
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5}, list.toArray());
+        assertEquals(List.list(1, 2, 3, 4, 5).toString(), list.toList().toString());
+    }
+
+    @Test
+    public void testLargeList() {
+        IntList ints = IntList.range(0, 1_000_000);
+        assertEquals(1_000_000, ints.length());
+        assertEquals(500_000, ints.filter(i -> i % 2 == 0).length());
+        assertEquals(499_999_500_000L, LongList.range(0, 1_000_000).sum());
+    }
+}
@@ -1,14 +1,25 @@
 package fpinjava.chapter8;
 
 import fpinjava.chapter1.Tuple;
+import fpinjava.chapter2.Function;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static fpinjava.chapter7.Result.empty;
 import static fpinjava.chapter7.Result.success;
 import static fpinjava.chapter8.List.list;
 import static fpinjava.chapter8.List.range;
 import static fpinjava.chapter8.List.unfold;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ListTest {
 
@@ -41,4 +52,210 @@ public class ListTest {
         assertEquals("[ [ 1, 2, NIL ], [ 3, 4, NIL ], [ 5, 6, NIL ], [ 7, 8, NIL ], NIL ]", list.divideMySol2(2).toString());
         assertEquals("[ [ 1, 2, NIL ], [ 3, 4, NIL ], [ 5, 6, NIL ], [ 7, 8, NIL ], NIL ]", list.divide(4).toString());
     }
+
+    // Each cons derives its length from the tail's in O(1): building a long list is linear and stack-safe.
+    @Test
+    public void testLength() {
+        List<Integer> ints = list();
+        for (int i = 0; i < 1_000_000; i++) {
+            ints = ints.cons(i);
+        }
+        assertEquals(1_000_000, ints.length());
+        assertEquals(999_999, ints.tail().length());
+        assertEquals(1_000_000, ints.reverse().length());
+        assertEquals("Success(0)", ints.getAt(999_999).toString());
+        assertEquals("Failure(Index out of bounds, index: 1000000)", ints.getAt(1_000_000).toString());
+        assertEquals(0, list().length());
+        assertEquals(3, list(1, 2, 3).lengthWithFoldRight());
+    }
+
+    // The builder-based operations give the same lists as the previous implementations, with correct lengths.
+    @Test
+    public void testBuilder() {
+        List<Integer> ints = range(0, 1_000_000);
+        assertEquals(1_000_000, ints.length());
+        assertEquals(999_999, ints.drop(1).length());
+        assertEquals(ints.toString(), unfold(0, i -> i < 1_000_000 ? success(new Tuple<>(i, i + 1)) : empty()).toString());
+        List<Integer> small = range(0, 1_000);
+        assertEquals(small.mapWithFoldRight(i -> i * 2).toString(), small.map(i -> i * 2).toString());
+        assertEquals(small.filterWithFoldRight(i -> i % 3 == 0).toString(), small.filter(i -> i % 3 == 0).toString());
+        assertEquals(334, small.filter(i -> i % 3 == 0).length());
+        assertEquals(333, small.filter(i -> i % 3 == 0).tail().length());
+        assertEquals(small.flatMapWithMap(i -> list(i, -i)).toString(), small.flatMap(i -> list(i, -i)).toString());
+        assertEquals(small.flatMapWithMap(i -> List.chunked(list(i, -i))).toString(), small.flatMap(i -> List.chunked(list(i, -i))).toString());
+        assertEquals(2_000, small.flatMap(i -> list(i, -i)).length());
+        List<Integer> zipped = List.zipWith(small, range(0, 10), a -> b -> a + b);
+        assertEquals(List.zipWithReverse(small, range(0, 10), a -> b -> a + b).toString(), zipped.toString());
+        assertEquals(10, zipped.length());
+        Tuple<List<Integer>, List<String>> unzipped = List.unzip(small.map(i -> new Tuple<>(i, "" + i)));
+        assertEquals(small.toString(), unzipped._1.toString());
+        assertEquals(small.map(i -> "" + i).toString(), unzipped._2.toString());
+        assertEquals(1_000, unzipped._2.length());
+        assertEquals(1_000_000, ints.map(i -> i + 1).filter(i -> i % 2 == 0).flatMap(i -> list(i, i)).length());
+        assertEquals("[ NIL ]", list().map(i -> i).toString());
+        assertEquals("[ NIL ]", small.filter(i -> i < 0).toString());
+        // Once built, the list can't be changed through the builder any more
+        List.Builder<Integer> builder = List.<Integer>builder().add(1).add(2);
+        List<Integer> built = builder.build();
+        assertThrows(IllegalStateException.class, () -> builder.add(3));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertEquals("[ 1, 2, NIL ]", built.toString());
+        assertEquals(2, built.length());
+        List<Integer> fromIterator = List.fromIterator(Arrays.asList(1, 2, 3).iterator());
+        assertEquals("[ 1, 2, 3, NIL ]", fromIterator.toString());
+        assertEquals(3, fromIterator.length());
+        assertEquals("[ NIL ]", List.fromIterator(Collections.emptyIterator()).toString());
+    }
+
+    @Test
+    public void testChunked() {
+        Integer[] ints = new Integer[100];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i;
+        }
+        List<Integer> chunked = List.chunked(ints);
+        assertEquals(list(ints).toString(), chunked.toString());
+        assertEquals(100, chunked.length());
+        assertEquals(4950, chunked.foldLeft(0, acc -> i -> acc + i));
+        assertEquals(list(ints).map(i -> i * 2).toString(), chunked.map(i -> i * 2).toString());
+        assertEquals(list(ints).filter(i -> i % 3 == 0).toString(), chunked.filter(i -> i % 3 == 0).toString());
+        assertEquals(list(ints).reverse().toString(), chunked.reverse().toString());
+        assertEquals(list(ints).drop(37).toString(), chunked.drop(37).toString());
+        assertEquals(list(ints).dropWhile(i -> i < 70).toString(), chunked.dropWhile(i -> i < 70).toString());
+        assertEquals("[ 98, 99, NIL ]", chunked.drop(98).toString());
+        assertEquals("[ NIL ]", chunked.drop(100).toString());
+    }
+
+    // drop() ending exactly on a chunk boundary
+    @Test
+    public void testChunkedDropAtBoundaries() {
+        Integer[] ints = new Integer[64];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i;
+        }
+        List<Integer> chunked = List.chunked(ints);
+        assertEquals(list(ints).toString(), chunked.drop(0).toString());
+        assertEquals(list(ints).drop(32).toString(), chunked.drop(32).toString());
+        assertEquals(32, chunked.drop(32).length());
+        assertEquals("[ NIL ]", chunked.drop(64).toString());
+        for (int n = 0; n < 64; n++) {
+            assertEquals(list(ints).drop(n + 1).toString(), chunked.drop(n).drop(1).toString());
+        }
+    }
+
+    @Test
+    public void testChunkedCons() {
+        List<Integer> chunked = List.chunked(list(3, 4));
+        List<Integer> list1 = chunked.cons(2).cons(1);
+        List<Integer> list2 = chunked.cons(-2); // Must not overwrite the slot already claimed by list1
+        assertEquals("[ 1, 2, 3, 4, NIL ]", list1.toString());
+        assertEquals("[ -2, 3, 4, NIL ]", list2.toString());
+        assertEquals("[ 3, 4, NIL ]", chunked.toString());
+        List<Integer> list3 = chunked;
+        for (int i = 2; i >= -100; i--) {
+            list3 = list3.cons(i);
+        }
+        assertEquals(105, list3.length());
+        assertEquals(-100, list3.headOption().getOrElse(0));
+        assertEquals(list1.toString(), list3.drop(102).cons(1).toString());
+    }
+
+    @Test
+    public void testParMap() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            List<Integer> ints = range(0, 5000);
+            String expected = ints.map(i -> i * 3).toString();
+            assertEquals(expected, ints.parMap(pool, i -> i * 3).map(List::toString).getOrElse(""));
+            assertEquals(expected, ints.parMap(es, i -> i * 3).map(List::toString).getOrElse(""));
+            assertEquals(expected, List.chunked(ints).parMap(pool, i -> i * 3).map(List::toString).getOrElse(""));
+            assertEquals("Success([ NIL ])", List.<Integer>list().parMap(pool, i -> i * 3).toString());
+            assertEquals("Success([ NIL ])", List.<Integer>list().parMap(es, i -> i * 3).toString());
+            assertTrue(ints.parMap(pool, i -> 1000 / (i - 4000)).isFailure());
+            assertTrue(ints.parMap(es, i -> 1000 / (i - 4000)).isFailure());
+        } finally {
+            pool.shutdown();
+            es.shutdown();
+        }
+    }
+
+    @Test
+    public void testParFilter() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            List<Integer> ints = range(0, 5000);
+            String expected = ints.filter(i -> i % 7 == 0).toString();
+            assertEquals(expected, ints.parFilter(pool, i -> i % 7 == 0).map(List::toString).getOrElse(""));
+            assertEquals(expected, ints.parFilter(es, i -> i % 7 == 0).map(List::toString).getOrElse(""));
+            assertEquals("Success([ 1, 2, NIL ])", list.parFilter(pool, i -> i < 3).toString());
+            assertEquals("Success([ NIL ])", list.parFilter(es, i -> i > 8).toString());
+        } finally {
+            pool.shutdown();
+            es.shutdown();
+        }
+    }
+
+    @Test
+    public void testParFoldLeft() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            List<Integer> ints = range(0, 5000);
+            assertEquals("Success(12497500)", ints.parFoldLeft(pool, 0, acc -> i -> acc + i, a -> b -> a + b).toString());
+            assertEquals("Success(12497500)", ints.parFoldLeft(es, 0, acc -> i -> acc + i, a -> b -> a + b).toString());
+            // The partial results are combined in order (m is associative, not commutative).
+            String expected = ints.foldLeft("", acc -> i -> acc + i);
+            assertEquals(expected, ints.parFoldLeft(pool, "", acc -> i -> acc + i, a -> b -> a + b).getOrElse(""));
+            assertEquals(expected, ints.parFoldLeft(es, "", acc -> i -> acc + i, a -> b -> a + b).getOrElse(""));
+            assertEquals("Success(0)", List.<Integer>list().parFoldLeft(pool, 0, acc -> i -> acc + i, a -> b -> a + b).toString());
+            assertTrue(ints.parFoldLeft(pool, 0, acc -> i -> acc + 1000 / (i - 4000), a -> b -> a + b).isFailure());
+            assertTrue(ints.parFoldLeft(es, 0, acc -> i -> acc + 1000 / (i - 4000), a -> b -> a + b).isFailure());
+            // With an ExecutorService, the partial results are combined by the workers, not by the caller.
+            Thread caller = Thread.currentThread();
+            AtomicInteger combinedByCaller = new AtomicInteger();
+            assertEquals(expected, ints.parFoldLeft(es, "", acc -> i -> acc + i, a -> b -> {
+                if (Thread.currentThread() == caller) {
+                    combinedByCaller.incrementAndGet();
+                }
+                return a + b;
+            }).getOrElse(""));
+            assertEquals(0, combinedByCaller.get());
+        } finally {
+            pool.shutdown();
+            es.shutdown();
+        }
+    }
+
+    @Test
+    public void testParFoldLeftTimeout() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        AtomicInteger folded = new AtomicInteger();
+        Function<Integer, Function<Integer, Integer>> slow = acc -> i -> {
+            folded.incrementAndGet();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return acc + i;
+        };
+        try {
+            List<Integer> ints = range(0, 5000);
+            assertEquals("Failure(Timeout after 50 MILLISECONDS)",
+                    ints.parFoldLeft(pool, 0, slow, a -> b -> a + b, 50, TimeUnit.MILLISECONDS).toString());
+            // The tasks that had not started when the timeout expired are skipped.
+            assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+            assertTrue(folded.get() < 5000);
+            folded.set(0);
+            assertEquals("Failure(Timeout after 50 MILLISECONDS)",
+                    ints.parFoldLeft(es, 0, slow, a -> b -> a + b, 50, TimeUnit.MILLISECONDS).toString());
+            assertEquals("Success(12497500)", ints.parFoldLeft(pool, 0, acc -> i -> acc + i, a -> b -> a + b, 10, TimeUnit.SECONDS).toString());
+        } finally {
+            pool.shutdownNow();
+            es.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package fpinjava.chapter8;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fpinjava.chapter8.List.list;
+import static fpinjava.chapter8.List.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ListViewTest {
+
+    List<Integer> ints = range(0, 1_000);
+
+    @Test
+    public void testSameResultsAsList() {
+        List<Integer> expected = ints.map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1);
+        ListView<Integer> view = ints.view().map(i -> i * 3).filter(i -> i % 2 == 0).map(i -> i + 1);
+        assertEquals(expected.toString(), view.toList().toString());
+        assertEquals(expected.length(), view.toList().length());
+        assertEquals(expected.foldLeft(0, a -> i -> a + i), view.foldLeft(0, a -> i -> a + i));
+        assertEquals(expected.getAt(10).toString(), view.getAt(10).toString());
+        assertEquals("Failure(Index out of bounds, index: 500)", view.getAt(500).toString());
+        assertEquals("Failure(Index out of bounds, index: -1)", view.getAt(-1).toString());
+        assertEquals("Success(31)", view.find(i -> i > 30).toString());
+        assertEquals("Empty()", view.find(i -> i < 0).toString());
+        assertTrue(view.exists(i -> i == 1_999));
+        assertFalse(view.exists(i -> i == 2_000));
+        assertTrue(view.forAll(i -> i % 2 == 1));
+        assertFalse(view.forAll(i -> i < 1_000));
+        assertEquals("[ 0, 1, 2, NIL ]", ints.view().takeWhile(i -> i < 3).toList().toString());
+        assertEquals("[ NIL ]", List.<Integer>list().view().map(i -> i + 1).toList().toString());
+        // The view can be traversed again, and the list is left unchanged
+        assertEquals(expected.toString(), view.toList().toString());
+        assertEquals(range(0, 1_000).toString(), ints.toString());
+    }
+
+    // The stages are applied when a terminal operation is called, and only as far as needed.
+    @Test
+    public void testLazyAndShortCircuiting() {
+        AtomicInteger mapped = new AtomicInteger();
+        ListView<Integer> view = ints.view().map(i -> {
+            mapped.incrementAndGet();
+            return i * 2;
+        }).filter(i -> i % 3 == 0);
+        assertEquals(0, mapped.get());
+        assertEquals("Success(12)", view.getAt(2).toString());
+        assertEquals(7, mapped.get());
+        mapped.set(0);
+        assertTrue(view.exists(i -> i > 10));
+        assertEquals(7, mapped.get());
+        mapped.set(0);
+        assertFalse(view.forAll(i -> i < 10));
+        assertEquals(7, mapped.get());
+        mapped.set(0);
+        assertEquals("[ 0, 6, NIL ]", view.takeWhile(i -> i < 10).toList().toString());
+        assertEquals(7, mapped.get());
+    }
+
+    @Test
+    public void testChunkedAndLong() {
+        Integer[] array = new Integer[100];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i;
+        }
+        List<Integer> chunked = List.chunked(array).cons(-1);
+        assertEquals(chunked.filter(i -> i % 7 == 0).toString(), chunked.view().filter(i -> i % 7 == 0).toList().toString());
+        assertEquals("Success(98)", chunked.view().getAt(99).toString());
+        List<Integer> million = range(0, 1_000_000);
+        assertEquals(500_000, million.view().filter(i -> i % 2 == 0).map(i -> 1).foldLeft(0, a -> i -> a + i));
+        assertEquals("Success(999999)", million.view().find(i -> i == 999_999).toString());
+        assertEquals(list(1, 2).toString(), list(1, 2).view().toList().toString());
+    }
+}
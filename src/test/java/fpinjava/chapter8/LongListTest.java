@@ -0,0 +1,25 @@
+package fpinjava.chapter8;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LongListTest {
+
+    LongList list = LongList.list(1L, 2L, 3L, 4L, 5L);
+
+    @Test
+    public void testRangeAndUnfold() {
+        assertEquals("[ 1, 2, 3, 4, 5, NIL ]", LongList.range(1, 6).toString());
+        assertEquals("[ 1, 10, 100, 1000, NIL ]", LongList.unfold(1, l -> l * 10, l -> l < 10_000).toString());
+    }
+
+    @Test
+    public void testOperations() {
+        assertEquals(15L, list.sum());
+        assertEquals(120L, list.product());
+        assertEquals("[ 10, 20, 30, 40, 50, NIL ]", list.map(l -> l * 10).toString());
+        assertEquals("[ 1, 3, 5, NIL ]", list.filter(l -> l % 2 == 1).toString());
+        assertEquals("[ 5, 4, 3, 2, 1, NIL ]", list.reverse().toString());
+    }
+}
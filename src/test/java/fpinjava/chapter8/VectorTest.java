@@ -0,0 +1,122 @@
+package fpinjava.chapter8;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static fpinjava.chapter8.List.list;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VectorTest {
+
+    private static Vector<Integer> range(int n) {
+        Vector<Integer> v = Vector.empty();
+        for (int i = 0; i < n; i++) {
+            v = v.append(i);
+        }
+        return v;
+    }
+
+    private static void assertSameElements(java.util.List<Integer> expected, Vector<Integer> v) {
+        assertEquals(expected.size(), v.length());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), v.get(i).getOrElse(-1));
+        }
+        assertEquals(expected.toString().replace("[", "Vector(").replace("]", ")"), v.toString());
+    }
+
+    @Test
+    public void testAppendAndGet() {
+        // Across the sizes where the tail moves into the trie, and where the trie gets one more level
+        for (int n : new int[]{0, 1, 31, 32, 33, 64, 1024, 1056, 1057, 33_000, 33_824, 33_825, 100_000}) {
+            Vector<Integer> v = range(n);
+            assertEquals(n, v.length());
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, v.get(i).getOrElse(-1));
+            }
+            assertEquals("Failure(Index out of bounds, index: " + n + ")", v.get(n).toString());
+            assertEquals("Failure(Index out of bounds, index: -1)", v.get(-1).toString());
+        }
+    }
+
+    @Test
+    public void testSetIsPersistent() {
+        Vector<Integer> v = range(2_000);
+        Vector<Integer> v2 = v.set(1_000, -1).getOrElse(v).set(1_990, -2).getOrElse(v);
+        assertEquals(-1, v2.get(1_000).getOrElse(0));
+        assertEquals(-2, v2.get(1_990).getOrElse(0));
+        assertEquals(1_000, v.get(1_000).getOrElse(0));
+        assertEquals(1_990, v.get(1_990).getOrElse(0));
+        assertEquals("Failure(Index out of bounds, index: 2000)", v.set(2_000, 0).toString());
+    }
+
+    @Test
+    public void testTakeAndDrop() {
+        Vector<Integer> v = range(40_000);
+        assertEquals(list(0, 1, 2).toString(), v.take(3).toList().toString());
+        assertEquals(list(39_998, 39_999).toString(), v.drop(39_998).toList().toString());
+        Vector<Integer> middle = v.drop(1_000).take(2_000);
+        assertEquals(2_000, middle.length());
+        assertEquals(1_000, middle.get(0).getOrElse(-1));
+        assertEquals(2_999, middle.get(1_999).getOrElse(-1));
+        assertEquals(3_000, middle.append(3_000).get(2_000).getOrElse(-1));
+        assertEquals(-5, middle.set(5, -5).getOrElse(middle).get(5).getOrElse(0));
+        // The trie loses a level, and grows again
+        Vector<Integer> shorter = v.take(1_100);
+        for (int i = 1_100; i < 36_000; i++) {
+            shorter = shorter.append(i);
+        }
+        assertSameElements(v.take(36_000).toList().foldLeft(new ArrayList<>(), l -> i -> {
+            l.add(i);
+            return l;
+        }), shorter);
+        assertTrue(v.take(0).isEmpty());
+        assertTrue(v.drop(40_000).isEmpty());
+        assertEquals(v, v.take(40_000));
+        assertEquals(v, v.drop(0));
+    }
+
+    // Random operations, checked against an ArrayList
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        java.util.List<Integer> expected = new ArrayList<>();
+        Vector<Integer> v = Vector.empty();
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(100);
+            if (op < 80 || expected.isEmpty()) {
+                expected.add(step);
+                v = v.append(step);
+            } else if (op < 90) {
+                int i = random.nextInt(expected.size());
+                expected.set(i, -step);
+                v = v.set(i, -step).getOrElse(Vector.empty());
+            } else if (op < 95) {
+                int n = expected.size() - random.nextInt(Math.min(expected.size(), 100));
+                expected = new ArrayList<>(expected.subList(0, n));
+                v = v.take(n);
+            } else {
+                int n = random.nextInt(Math.min(expected.size(), 100));
+                expected = new ArrayList<>(expected.subList(n, expected.size()));
+                v = v.drop(n);
+            }
+        }
+        assertSameElements(expected, v);
+    }
+
+    @Test
+    public void testListInterop() {
+        List<Integer> ints = List.range(0, 5_000);
+        Vector<Integer> v = ints.toVector();
+        assertEquals(ints.toString(), v.toList().toString());
+        assertEquals(Vector.fromList(List.chunked(ints)).toString(), v.toString());
+        assertEquals(ints.foldLeft(0, a -> i -> a + i), v.foldLeft(0, a -> i -> a + i));
+        assertEquals(ints.map(i -> i * 2).toString(), v.map(i -> i * 2).toList().toString());
+        assertEquals(ints.filter(i -> i % 3 == 0).toString(), v.filter(i -> i % 3 == 0).toList().toString());
+        assertEquals(ints.drop(4_990).toString(), v.drop(4_990).toList().toString());
+        assertEquals("Vector(1, 2, 3)", Vector.of(1, 2, 3).toString());
+        assertEquals("[ NIL ]", Vector.empty().toList().toString());
+    }
+}
@@ -0,0 +1,97 @@
+package fpinjava.chapter9;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedFileTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        return Files.write(dir.resolve("file.txt"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String lines(Path path, int windowSize) {
+        return MappedFile.lines(path, StandardCharsets.UTF_8, windowSize).map(s -> s.toList().toString()).getOrElse("error");
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        Path path = write("one\ntwo\r\n\nthree");
+        assertEquals("[ one, two, , three, NIL ]", Stream.lines(path).map(s -> s.toList().toString()).getOrElse("error"));
+        assertEquals("[ one, two, , three, NIL ]", lines(path, 3));
+        assertEquals("[ one, NIL ]", lines(write("one\n"), 2));
+        assertEquals("[ NIL ]", lines(write(""), 2));
+        assertEquals("[ héhé, ünïcode, NIL ]", lines(write("héhé\nünïcode\n"), 5));
+    }
+
+    // Lines crossing windows, and lines longer than a window
+    @Test
+    public void testLinesAcrossWindows() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("line ").append(i).append("x".repeat(i % 300)).append('\n');
+        }
+        Path path = write(sb.toString());
+        String expected = fpinjava.chapter8.List.chunked(Files.readAllLines(path).toArray(new String[0])).toString();
+        assertEquals(expected, lines(path, 100));
+        assertEquals(expected, lines(path, 4096));
+        assertEquals("line 4999" + "x".repeat(4999 % 300), MappedFile.lines(path, StandardCharsets.UTF_8, 100).getOrElse(Stream.empty()).drop(4999).head()._1);
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        Path path = write("abcdefghij");
+        assertEquals("[ abc, def, ghi, j, NIL ]", MappedFile.records(path, 3, 7)
+                .map(s -> s.map(bs -> new String(bs, StandardCharsets.UTF_8)).toList().toString()).getOrElse("error"));
+        assertEquals("[ abcde, fghij, NIL ]", Stream.records(path, 5)
+                .map(s -> s.map(bs -> new String(bs, StandardCharsets.UTF_8)).toList().toString()).getOrElse("error"));
+        assertEquals("Failure(Record size must be positive: 0)", Stream.records(path, 0).toString());
+    }
+
+    @Test
+    public void testManyRecords() throws IOException {
+        byte[] bytes = new byte[8 * 100_000];
+        for (int i = 0; i < bytes.length; i += 8) {
+            bytes[i] = (byte) (i / 8);
+        }
+        Path path = Files.write(dir.resolve("records.bin"), bytes);
+        Stream<byte[]> records = MappedFile.records(path, 8, 8 * 1000 + 3).getOrElse(Stream.empty());
+        assertEquals(100_000, records.toList().length());
+        assertEquals((byte) 99_999, records.drop(99_999).head()._1[0]);
+    }
+
+    // Lines are split on bytes: charsets encoding \n on more than one byte are rejected.
+    @Test
+    public void testCharsets() throws IOException {
+        Path utf16 = Files.write(dir.resolve("utf16.txt"), "a\nb\n".getBytes(StandardCharsets.UTF_16));
+        assertEquals("Failure(Charset not compatible with ASCII line terminators: UTF-16)", Stream.lines(utf16, StandardCharsets.UTF_16).toString());
+        assertEquals("Failure(Charset not compatible with ASCII line terminators: UTF-16LE)", Stream.lines(utf16, StandardCharsets.UTF_16LE).toString());
+        Path latin1 = Files.write(dir.resolve("latin1.txt"), "é\r\nà\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("[ é, à, NIL ]", Stream.lines(latin1, StandardCharsets.ISO_8859_1).map(s -> s.toList().toString()).getOrElse("error"));
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertTrue(Stream.lines(dir.resolve("missing.txt")).toString().startsWith("Failure("));
+    }
+
+    @Test
+    public void testTake() throws IOException {
+        Path path = write("a\nb\nc\nd\n");
+        assertEquals("[ a, b, NIL ]", MappedFile.lines(path, StandardCharsets.UTF_8, 2).map(s -> s.take(2).toList().toString()).getOrElse("error"));
+        assertEquals("[ a, b, c, NIL ]", MappedFile.lines(path, StandardCharsets.UTF_8, 2).map(s -> s.takeWhile(l -> !l.equals("d")).toList().toString()).getOrElse("error"));
+        // Nothing is left open: the file can be deleted and recreated
+        Files.delete(path);
+        assertEquals("[ e, NIL ]", lines(write("e"), 2));
+    }
+}
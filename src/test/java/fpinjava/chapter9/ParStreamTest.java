@@ -0,0 +1,64 @@
+package fpinjava.chapter9;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParStreamTest {
+
+    ExecutorService forkJoin = new ForkJoinPool(4);
+    ExecutorService fixed = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        forkJoin.shutdownNow();
+        fixed.shutdownNow();
+    }
+
+    @Test
+    public void testToList() {
+        for (ExecutorService es : new ExecutorService[]{forkJoin, fixed}) {
+            assertEquals("Success([ 2, 4, 6, 8, 10, NIL ])", Stream.from(1).take(5).parallel(es).map(n -> n * 2).toList().toString());
+            assertEquals("Success([ 4, 8, 12, NIL ])", Stream.from(1).take(7).parallel(es).map(n -> n * 2).filter(n -> n % 4 == 0).toList().toString());
+            assertEquals("Success([ NIL ])", Stream.<Integer>empty().parallel(es).map(n -> n * 2).toList().toString());
+        }
+    }
+
+    // Large enough to be split into many tasks: the encounter order is kept.
+    @Test
+    public void testOrderIsKept() {
+        String expected = Stream.from(0, 1024).take(100_000).map(n -> n * 3).filter(n -> n % 2 == 0).map(n -> n + 1).toList().toString();
+        for (ExecutorService es : new ExecutorService[]{forkJoin, fixed}) {
+            assertEquals("Success(" + expected + ")",
+                    Stream.from(0, 1024).take(100_000).parallel(es).map(n -> n * 3).filter(n -> n % 2 == 0).map(n -> n + 1).toList().toString());
+        }
+    }
+
+    @Test
+    public void testFoldLeft() {
+        assertEquals("Success(2500000000)", Stream.from(0).take(100_000).parallel(forkJoin)
+                .filter(n -> n % 2 == 1).map(Long::valueOf).foldLeft(0L, acc -> n -> acc + n, a -> b -> a + b).toString());
+    }
+
+    @Test
+    public void testFailure() {
+        String result = Stream.from(0).take(10_000).parallel(forkJoin).map(n -> {
+            if (n == 5_000) {
+                throw new IllegalStateException("boom");
+            }
+            return n;
+        }).toList().toString();
+        assertTrue(result.startsWith("Failure(") && result.contains("boom"), result);
+    }
+
+    @Test
+    public void testSequential() {
+        assertEquals("[ 3, 6, 9, NIL ]", Stream.from(1).parallel(forkJoin).map(n -> n * 3).filter(n -> n % 3 == 0).sequential().take(3).toList().toString());
+    }
+}
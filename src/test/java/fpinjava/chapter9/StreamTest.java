@@ -1,9 +1,28 @@
 package fpinjava.chapter9;
 
+import fpinjava.chapter1.Tuple;
+import fpinjava.chapter7.Result;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static fpinjava.chapter4.TailCall.ret;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StreamTest {
@@ -69,4 +88,296 @@ public class StreamTest {
         assertEquals("Success(5)", numbers.find(n -> n * 2 == 10).toString());
     }
 
+    @Test
+    public void testFusedPipeline() {
+        assertEquals("[ 7, 13, 19, 25, 31, NIL ]", numbers.map(n -> n * 3).filter(n -> n % 2 == 0).map(n -> n + 1).take(5).toList().toString());
+        assertEquals("[ 2, 4, NIL ]", numbers.take(5).filter(n -> n % 2 == 0).toList().toString());
+        assertEquals("[ 2, 4, NIL ]", numbers.filter(n -> n % 2 == 0).take(2).toList().toString());
+        assertEquals("[ 4, 8, NIL ]", numbers.filter(n -> n % 2 == 0).take(2).map(n -> n * 2).toList().toString());
+        assertEquals("[ 2, 4, 6, NIL ]", numbers.map(n -> n * 2).takeWhile(n -> n < 8).toList().toString());
+        assertEquals("[ 2, 3, NIL ]", numbers.take(3).take(10).drop(1).toList().toString());
+        assertEquals("[ NIL ]", numbers.filter(n -> n < 0).take(0).toList().toString());
+        assertEquals("[ NIL ]", Stream.<Integer>empty().map(n -> n * 2).filter(n -> n > 0).toList().toString());
+    }
+
+    @Test
+    public void testFusedFlatMap() {
+        assertEquals("[ 10, 20, 40, 60, 90, 120, NIL ]", numbers.take(3).flatMap(n -> Stream.from(n).take(2).map(m -> m * n)).map(n -> n * 10).toList().toString());
+        assertEquals("[ 1, 2, 2, 3, 3, NIL ]", numbers.flatMap(n -> Stream.from(n).take(2)).takeWhile(n -> n < 4).toList().toString());
+        assertEquals("[ 1, 1, 2, 1, 2, 3, NIL ]", numbers.take(3).flatMap(n -> Stream.from(1).take(n)).toList().toString());
+        assertEquals("[ 1, 1, 2, NIL ]", numbers.take(3).flatMap(n -> Stream.from(1).take(n)).flatMap(n -> Stream.from(n).take(1)).take(3).toList().toString());
+        assertEquals("[ 3, NIL ]", numbers.take(3).flatMap(n -> n < 3 ? Stream.<Integer>empty() : Stream.from(n).take(1)).toList().toString());
+    }
+
+    // Each element of the source is pulled once, and no further than needed.
+    @Test
+    public void testFusedLaziness() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<Integer> stream = Stream.iterate(1, n -> {
+            pulled.incrementAndGet();
+            return n + 1;
+        }).map(n -> n * 2).filter(n -> n % 3 == 0).take(2);
+        assertEquals(0, pulled.get());
+        assertEquals("[ 6, 12, NIL ]", stream.toList().toString());
+        assertEquals("[ 6, 12, NIL ]", stream.toList().toString());
+        assertEquals(5, pulled.get());
+    }
+
+    @Test
+    public void testToList() {
+        fpinjava.chapter8.List<Integer> list = Stream.iterate(0, n -> n + 1).take(1_000_000).toList();
+        assertEquals(1_000_000, list.length());
+        assertEquals(Stream.from(1).take(100).toListWithReverse().toString(), numbers.take(100).toList().toString());
+        assertEquals("[ NIL ]", Stream.<Integer>empty().toList().toString());
+    }
+
+    @Test
+    public void testFusedIsStackSafe() {
+        assertEquals("Success(1000000)", numbers.filter(n -> n == 1_000_000).headOption()._1.toString());
+        assertEquals("Success(1000000)", numbers.map(n -> n + 1).filter(n -> n > 999_999).headOption()._1.toString());
+        assertFalse(numbers.take(1_000_000).map(n -> n * 2).filter(n -> n % 2 == 0).exists(n -> n < 0));
+    }
+
+    @Test
+    public void testFoldRightStackSafe() {
+        assertEquals(15, numbers.take(5).foldRightStackSafe(() -> 0, n -> t -> t.map(s -> n + s)));
+        assertEquals(500_000_500_000L, numbers.take(1_000_000).foldRightStackSafe(() -> 0L, n -> t -> t.map(s -> n + s)));
+        // Skipping elements (rest) and stopping (ret) on an infinite stream
+        assertEquals(1_000_000, numbers.foldRightStackSafe(() -> 0, n -> t -> n == 1_000_000 ? ret(n) : t));
+        assertEquals(1_000_000, numbers.foldRightStackSafe(Stream::<Integer>empty, n -> t -> n % 1_000_000 == 0 ? ret(Stream.cons(() -> n, t::eval)) : t).head()._1);
+    }
+
+    @Test
+    public void testFoldRightStackSafeIsLazy() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<Integer> mapped = numbers.mapWithFoldRight(n -> {
+            pulled.incrementAndGet();
+            return n * 10;
+        });
+        assertEquals("[ 10, 20, 30, NIL ]", mapped.take(3).toList().toString());
+        assertEquals(3, pulled.get());
+    }
+
+    @Test
+    public void testDerivedFoldRightIsStackSafe() {
+        Stream<Integer> million = numbers.take(1_000_000);
+        assertEquals(1_000_000, million.mapWithFoldRight(n -> n * 2).drop(999_999).head()._1 / 2);
+        assertEquals("Success(1000000)", million.flatMapWithFoldRight(n -> n == 1_000_000 ? Stream.cons(() -> n, Stream::empty) : Stream.<Integer>empty()).headOptionWithFoldRight().toString());
+        assertEquals("Success(7)", million.flatMapWithFoldRight(n -> Stream.<Integer>empty()).append(() -> Stream.from(7)).headOptionWithFoldRight().toString());
+        assertEquals(2_000_000, million.append(() -> million).drop(1_999_999).head()._1 + 1_000_000);
+        assertEquals(1_000_000, million.flatMapWithFoldRight(n -> Stream.from(n).take(1)).drop(999_999).head()._1);
+        assertEquals(1_000_000, million.takeWhileWithFoldRight(n -> n > 0).drop(999_999).head()._1);
+        assertEquals("Success(1000000)", numbers.filter(n -> n == 1_000_000).headOptionWithFoldRight().toString());
+    }
+
+    // Stream of 0 until n, counting the calls to the head and tail Supplier-s of every cell.
+    private static Stream<Integer> counted(int i, int n, AtomicIntegerArray heads, AtomicIntegerArray tails) {
+        return Stream.cons(() -> {
+            heads.incrementAndGet(i);
+            Thread.yield();
+            return i;
+        }, () -> {
+            tails.incrementAndGet(i);
+            Thread.yield();
+            return i + 1 < n ? counted(i + 1, n, heads, tails) : Stream.empty();
+        });
+    }
+
+    @Test
+    public void testMemoizationIsThreadSafe() throws Exception {
+        int n = 1_000;
+        int threads = 32;
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 10; round++) {
+                AtomicIntegerArray heads = new AtomicIntegerArray(n);
+                AtomicIntegerArray tails = new AtomicIntegerArray(n);
+                AtomicIntegerArray mapped = new AtomicIntegerArray(n);
+                Stream<Integer> shared = counted(0, n, heads, tails);
+                Stream<Integer> sharedPipeline = shared.map(i -> {
+                    mapped.incrementAndGet(i);
+                    return i * 2;
+                }).filter(i -> i % 3 == 0);
+                CyclicBarrier start = new CyclicBarrier(threads);
+                java.util.List<Future<String>> results = new java.util.ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    boolean pipeline = t % 2 == 0;
+                    results.add(es.submit(() -> {
+                        start.await();
+                        return (pipeline ? sharedPipeline : shared.take(n)).toList().toString();
+                    }));
+                }
+                String expected = Stream.from(0).take(n).toList().toString();
+                String expectedPipeline = Stream.from(0).take(n).map(i -> i * 2).filter(i -> i % 3 == 0).toList().toString();
+                for (int t = 0; t < threads; t++) {
+                    assertEquals(t % 2 == 0 ? expectedPipeline : expected, results.get(t).get());
+                }
+                for (int i = 0; i < n; i++) {
+                    assertEquals(1, heads.get(i));
+                    assertEquals(1, tails.get(i));
+                    assertEquals(1, mapped.get(i));
+                }
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> RuntimeException sneakyThrow(Throwable t) throws T {
+        throw (T) t;
+    }
+
+    // A Supplier throwing a checked exception (sneakily) does not leave the cell being evaluated:
+    // a waiting thread is woken up, and the next access calls the Supplier again.
+    @Test
+    public void testMemoizationAfterCheckedException() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Stream<Integer> stream = Stream.cons(() -> {
+            if (calls.incrementAndGet() == 1) {
+                evaluating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw StreamTest.<RuntimeException>sneakyThrow(new IOException("failed"));
+            }
+            return 1;
+        }, Stream::empty);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            Future<Throwable> first = es.submit(() -> {
+                try {
+                    stream.toList();
+                    return null;
+                } catch (Throwable e) {
+                    return e;
+                }
+            });
+            evaluating.await();
+            Future<String> second = es.submit(() -> stream.toList().toString());
+            Thread.sleep(20); // the second thread finds the cell being evaluated, and parks
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS) instanceof IOException);
+            assertEquals("[ 1, NIL ]", second.get(5, TimeUnit.SECONDS));
+            assertEquals("[ 1, NIL ]", stream.toList().toString());
+            assertEquals(2, calls.get());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMemoizationRetriesAfterException() {
+        AtomicInteger calls = new AtomicInteger();
+        Stream<Integer> stream = Stream.cons(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("first call");
+            }
+            return 42;
+        }, Stream::empty);
+        assertThrows(IllegalStateException.class, () -> stream.headOption());
+        assertEquals("Success(42)", stream.headOption()._1.toString());
+        assertEquals("Success(42)", stream.headOption()._1.toString());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testChunked() {
+        Stream<Integer> chunked = Stream.from(1, 4);
+        assertEquals("[ 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, NIL ]", chunked.take(10).toList().toString());
+        assertEquals("[ 2, 4, 6, 8, 10, NIL ]", chunked.map(n -> n * 2).take(5).toList().toString());
+        assertEquals("[ 3, 6, 9, 12, NIL ]", chunked.filter(n -> n % 3 == 0).take(4).toList().toString());
+        assertEquals("[ 7, 8, 9, NIL ]", chunked.drop(6).take(3).toList().toString());
+        assertEquals("[ 6, 7, 8, NIL ]", chunked.take(10).drop(5).take(3).toList().toString());
+        assertTrue(chunked.exists(n -> n == 42));
+        assertFalse(chunked.take(41).exists(n -> n == 42));
+        // The other operations see the elements one by one
+        assertEquals("[ 1, 2, 3, NIL ]", chunked.takeWhile(n -> n < 4).toList().toString());
+        assertEquals("[ 1, 1, 2, 2, NIL ]", chunked.flatMap(n -> Stream.from(n).take(1).append(() -> Stream.from(n).take(1))).take(4).toList().toString());
+        assertEquals("[ 1, 2, 3, NIL ]", Stream.unfold(1, n -> n < 4 ? Result.success(new Tuple<>(n, n + 1)) : Result.empty(), 2).toList().toString());
+        assertEquals("[ 1, 2, 4, 8, NIL ]", Stream.iterate(1, n -> n * 2, 3).take(4).toList().toString());
+        assertEquals("[ 1, 2, 3, NIL ]", Stream.chunk(new Integer[]{1, 2}, () -> Stream.chunk(new Integer[]{3}, Stream::empty)).toList().toString());
+    }
+
+    @Test
+    public void testChunkedEvaluatesOneChunkPerStep() {
+        AtomicInteger produced = new AtomicInteger();
+        Stream<Integer> chunked = Stream.unfold(0, n -> {
+            produced.incrementAndGet();
+            return Result.success(new Tuple<>(n, n + 1));
+        }, 100);
+        assertEquals(100, produced.get());
+        assertEquals("[ 0, 1, 2, NIL ]", chunked.take(3).toList().toString());
+        assertEquals(100, produced.get());
+        assertEquals(150, chunked.drop(150).head()._1);
+        assertEquals(200, produced.get());
+    }
+
+    // map() on a chunked stream applies the function to a chunk when its first element is read.
+    @Test
+    public void testChunkedMapIsLazy() {
+        AtomicInteger mapped = new AtomicInteger();
+        Stream<Integer> doubled = Stream.from(0, 10).map(n -> {
+            mapped.incrementAndGet();
+            return n * 2;
+        });
+        assertEquals(0, mapped.get());
+        Stream<Integer> more = doubled.map(n -> n + 1).take(15);
+        assertEquals(0, mapped.get());
+        assertEquals(0, doubled.head()._1);
+        assertEquals(10, mapped.get());
+        assertEquals("[ 1, 3, 5, NIL ]", more.take(3).toList().toString());
+        assertEquals(10, mapped.get());
+        assertEquals(29, more.drop(14).head()._1);
+        assertEquals(20, mapped.get());
+        assertEquals(1_000, Stream.from(0, 10).map(n -> n + 1).map(n -> n * 2).take(1_000).toList().length());
+    }
+
+    @Test
+    public void testRechunk() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<Integer> rechunked = numbers.map(n -> {
+            pulled.incrementAndGet();
+            return n;
+        }).rechunk(3);
+        assertEquals(3, pulled.get());
+        assertEquals("[ 1, 2, 3, 4, NIL ]", rechunked.take(4).toList().toString());
+        assertEquals(6, pulled.get());
+        assertEquals("[ 1, 2, 3, 4, 5, 6, 7, NIL ]", Stream.from(1, 4).take(7).rechunk(5).toList().toString());
+        assertEquals("[ 3, 4, 5, 6, 7, NIL ]", Stream.from(1, 4).drop(2).take(5).rechunk(2).toList().toString());
+        assertEquals("[ NIL ]", Stream.<Integer>empty().rechunk(2).toList().toString());
+        assertThrows(IllegalArgumentException.class, () -> numbers.rechunk(0));
+    }
+
+    @Test
+    public void testChunkedIsStackSafe() {
+        Stream<Integer> million = Stream.from(0, 1024).take(1_000_000);
+        assertEquals(1_000_000, million.toList().length());
+        assertEquals("Success(999999)", million.filter(n -> n == 999_999).headOption()._1.toString());
+        assertFalse(million.map(n -> n * 2).filter(n -> n % 2 == 1).exists(n -> true));
+        assertEquals(999_999, numbers.take(1_000_000).rechunk(1000).drop(999_998).head()._1);
+    }
+
+    @Test
+    public void testSpliterator() {
+        assertEquals(500_500L, StreamSupport.stream(numbers.take(1_000).spliterator(), false).mapToLong(n -> n).sum());
+        assertEquals(500_000_500_000L, StreamSupport.stream(numbers.take(1_000_000).spliterator(), true).mapToLong(n -> n).sum());
+        assertEquals(Arrays.asList(2, 4, 6), StreamSupport.stream(numbers.take(6).spliterator(), true).filter(n -> n % 2 == 0).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 2, 3), StreamSupport.stream(Stream.from(1, 2).filter(n -> n < 4).take(3).spliterator(), false).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFromSpliterator() {
+        assertEquals("[ 1, 2, 3, NIL ]", Stream.fromSpliterator(Arrays.asList(1, 2, 3).spliterator()).toList().toString());
+        assertEquals("[ NIL ]", Stream.fromSpliterator(Spliterators.<Integer>emptySpliterator()).toList().toString());
+        Stream<Integer> stream = Stream.fromSpliterator(IntStream.range(0, 5_000).boxed().spliterator());
+        assertEquals(5_000, stream.toList().length());
+        assertEquals(4_999, stream.drop(4_999).head()._1);
+        // Lazy: only the first chunk is pulled from an infinite source
+        assertEquals("[ 0, 1, 2, NIL ]", Stream.fromSpliterator(IntStream.iterate(0, n -> n + 1).boxed().spliterator()).take(3).toList().toString());
+    }
 }